@@ -0,0 +1,82 @@
+package org.govt.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.govt.model.Address;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Wiring for benchmark states: services are created directly and their
+ * {@code @Autowired} fields filled in by hand instead of starting Spring.
+ */
+final class Fixtures {
+
+    static final String[] STATES = { "Maharashtra", "Karnataka", "Gujarat", "Punjab", "Kerala" };
+
+    private Fixtures() {
+    }
+
+    static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getSimpleName() + " has no field " + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    /**
+     * A repository whose findAll reads from the stand-in template. Other
+     * methods are answered from {@code answers} by name, anything else throws.
+     */
+    @SuppressWarnings("unchecked")
+    static <R> R repository(Class<R> type, Class<?> entityClass, InMemoryMongoTemplate template,
+            Map<String, Function<Object[], Object>> answers) {
+        return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                return template.findAll(entityClass);
+            }
+            if (answers.containsKey(method.getName())) {
+                return answers.get(method.getName()).apply(args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + " stand-in";
+                }
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+        });
+    }
+
+    static <R> R repository(Class<R> type, Class<?> entityClass, InMemoryMongoTemplate template) {
+        return repository(type, entityClass, template, Map.of());
+    }
+
+    // n-th address of a deterministic spread: 5 states, 50 cities, 500 zip codes
+    static Address address(int n) {
+        Address address = new Address();
+        address.setStreet("Street " + (n % 2000));
+        address.setZipCode(String.valueOf(400000 + n % 500));
+        address.setCity("City " + (n % 50));
+        address.setState(STATES[n % STATES.length]);
+        address.setCountry("India");
+        return address;
+    }
+
+    static List<String> strings(String prefix, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = prefix + i;
+        }
+        return List.of(values);
+    }
+}
@@ -0,0 +1,82 @@
+package org.govt.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.client.MongoClients;
+
+/**
+ * Mongo stand-in for benchmarks. Entities are converted to documents with the
+ * real mapping converter and filtered in memory, so queries still pay for
+ * criteria building and mapping but not for a server round trip. Only
+ * equality filters on (dotted) field paths are supported, which is what the
+ * nearest-match lookups use.
+ *
+ * The client is never used: it points at a closed port and is created lazily
+ * by the driver, so no server is needed.
+ */
+public class InMemoryMongoTemplate extends MongoTemplate {
+
+    private final Map<String, List<Document>> collections = new ConcurrentHashMap<>();
+
+    public InMemoryMongoTemplate() {
+        super(MongoClients.create("mongodb://localhost:1/?serverSelectionTimeoutMS=1"), "benchmarks");
+    }
+
+    public void add(Object entity) {
+        Document document = new Document();
+        getConverter().write(entity, document);
+        collections.computeIfAbsent(getCollectionName(entity.getClass()), c -> new CopyOnWriteArrayList<>())
+                .add(document);
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> entityClass) {
+        return find(new Query(), entityClass);
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass) {
+        Document filter = query.getQueryObject();
+        List<T> result = new ArrayList<>();
+        for (Document document : collections.getOrDefault(getCollectionName(entityClass), List.of())) {
+            if (matches(document, filter)) {
+                result.add(getConverter().read(entityClass, document));
+            }
+            if (query.getLimit() > 0 && result.size() == query.getLimit()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(Document document, Document filter) {
+        for (Map.Entry<String, Object> condition : filter.entrySet()) {
+            if (condition.getValue() instanceof Document || condition.getKey().startsWith("$")) {
+                throw new UnsupportedOperationException("Only equality filters are supported: " + filter.toJson());
+            }
+            if (!condition.getValue().equals(valueAt(document, condition.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object valueAt(Document document, String path) {
+        Object value = document;
+        for (String key : path.split("\\.")) {
+            if (!(value instanceof Document current)) {
+                return null;
+            }
+            value = current.get(key);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,72 @@
+package org.govt.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.VerifiedToken;
+import org.govt.Enums.UserRole;
+import org.govt.model.UserAccount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token generation and the three ways a token is checked: a verify that hits
+ * the verified-token cache, a full signature check (cache disabled), and
+ * validateToken against a loaded user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+    private VerifiedToken verified;
+    private UserAccount user;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        uncachedJwtUtil = new JwtUtil(0);
+        token = jwtUtil.generateTokenWithRole("supervisor1", "652f0c1e8b3a4d2f9c1e0a11", UserRole.SUPERVISOR);
+        verified = jwtUtil.verify(token);
+        user = new UserAccount("supervisor1", UserRole.SUPERVISOR, "652f0c1e8b3a4d2f9c1e0a11");
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateTokenWithRole("supervisor1", "652f0c1e8b3a4d2f9c1e0a11", UserRole.SUPERVISOR);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyUncached() {
+        return uncachedJwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Boolean validate() {
+        return jwtUtil.validateToken(verified, user);
+    }
+
+    @Benchmark
+    public Boolean validateFromString() {
+        return uncachedJwtUtil.validateToken(token, user);
+    }
+}
@@ -0,0 +1,104 @@
+package org.govt.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.govt.model.Address;
+import org.govt.model.User_Supervisor;
+import org.govt.model.User_Supplier;
+import org.govt.repository.UserSupervisorRepository;
+import org.govt.repository.UserSupplierRepository;
+import org.govt.service.ProjectService;
+import org.govt.service.UserSupervisorService;
+import org.govt.service.UserSupplierService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The address search behind findNearestSupervisor and findNearestSupplier:
+ * criteria building per level, mapping of the matches and the availability
+ * filter, against the in-memory stand-in. {@code street} matches on the first
+ * level, {@code city} falls through one level and {@code country} through
+ * three.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NearestMatchBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int users;
+
+    @Param({ "street", "city", "country" })
+    public String level;
+
+    private UserSupervisorService supervisorService;
+    private ProjectService projectService;
+    private Address address;
+
+    @Setup
+    public void setup() {
+        InMemoryMongoTemplate template = new InMemoryMongoTemplate();
+        for (int i = 0; i < users; i++) {
+            User_Supervisor supervisor = new User_Supervisor("Supervisor " + i, "supervisor" + i, "{noop}x",
+                    "1990-01-01", "supervisor" + i + "@example.org", "GST" + i, Fixtures.address(i));
+            supervisor.setId(String.format("%024x", i));
+            template.add(supervisor);
+
+            User_Supplier supplier = new User_Supplier("Supplier " + i, "supplier" + i, "{noop}x",
+                    "1990-01-01", 9_000_000_000L + i, "supplier" + i + "@example.org", "GST" + i,
+                    Fixtures.address(i));
+            supplier.setId(String.format("%024x", users + i));
+            template.add(supplier);
+        }
+
+        supervisorService = new UserSupervisorService(
+                Fixtures.repository(UserSupervisorRepository.class, User_Supervisor.class, template), null);
+        Fixtures.inject(supervisorService, "mongoTemplate", template);
+
+        UserSupplierService supplierService = new UserSupplierService();
+        Fixtures.inject(supplierService, "mongoTemplate", template);
+        Fixtures.inject(supplierService, "userSupplierRepository",
+                Fixtures.repository(UserSupplierRepository.class, User_Supplier.class, template));
+        projectService = new ProjectService();
+        Fixtures.inject(projectService, "supplierService", supplierService);
+
+        address = Fixtures.address(7);
+        switch (level) {
+            case "street":
+                break;
+            case "city":
+                address.setStreet("Unknown street");
+                break;
+            case "country":
+                address.setStreet("Unknown street");
+                address.setCity("Unknown city");
+                address.setState("Unknown state");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown level: " + level);
+        }
+    }
+
+    @Benchmark
+    public List<User_Supervisor> nearestSupervisor() {
+        return supervisorService.findNearestSupervisor(address);
+    }
+
+    @Benchmark
+    public List<User_Supplier> nearestSupplier() {
+        return projectService.findNearestSupplier(address);
+    }
+}
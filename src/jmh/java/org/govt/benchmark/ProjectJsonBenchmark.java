@@ -0,0 +1,100 @@
+package org.govt.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.govt.Enums.ProjectStatus;
+import org.govt.model.Project;
+import org.govt.model.ProjectProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON writing and reading of a large {@link Project}, with the object
+ * mapper configured the way Spring MVC configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectJsonBenchmark {
+
+    // Number of progress steps, materials, quantities, documents and suppliers
+    @Param({ "10", "1000" })
+    public int items;
+
+    private ObjectMapper objectMapper;
+    private Project project;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        project = new Project();
+        project.setId("652f0c1e8b3a4d2f9c1e0a11");
+        project.setTitle("Ring road widening");
+        project.setDescription("Widening of the ring road to six lanes, ".repeat(20));
+        project.setDepartmentId("roads");
+        project.setLocation(Fixtures.address(7));
+        project.setProjectManagerId("652f0c1e8b3a4d2f9c1e0a12");
+        project.setCreatedByName("Project Manager");
+        project.setExpectedStartDate("2025-01-01");
+        project.setDeadline("2026-12-31");
+        project.setBidSubmissionDeadline("2024-12-01");
+        project.setCreatedAt("2024-10-01T10:00:00");
+        project.setTotalBudget(new BigDecimal("125000000.00"));
+        project.setBudgetApproved(new BigDecimal("100000000.00"));
+        project.setBudgetUsed(new BigDecimal("12345678.90"));
+        project.setContractorRequirements("Class A civil contractor licence");
+        project.setRequiredMaterials(Fixtures.strings("Material ", items));
+        project.setEstimatedQuantities(Fixtures.strings("Quantity ", items));
+        project.setDocumentIds(Fixtures.strings("document-", items));
+        project.setAssignedSupplierIds(Fixtures.strings("supplier-", items));
+        project.setStatus(ProjectStatus.values()[0]);
+
+        List<ProjectProgress> steps = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            ProjectProgress step = new ProjectProgress();
+            step.setId("step-" + i);
+            step.setTitle("Step " + i);
+            step.setDescription("Work package " + i);
+            step.setSupervisorId("652f0c1e8b3a4d2f9c1e0a13");
+            step.setStatus("NOT_STARTED");
+            step.setDueDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            step.setOrder(i);
+            steps.add(step);
+        }
+        project.setProgressSteps(steps);
+
+        json = objectMapper.writeValueAsBytes(project);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(project);
+    }
+
+    @Benchmark
+    public Project deserialize() throws IOException {
+        return objectMapper.readValue(json, Project.class);
+    }
+}
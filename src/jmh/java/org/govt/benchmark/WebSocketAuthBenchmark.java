@@ -0,0 +1,103 @@
+package org.govt.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.WebSocketAuthInterceptor;
+import org.govt.Enums.UserRole;
+import org.govt.model.RevokedToken;
+import org.govt.model.UserAccount;
+import org.govt.repository.RevokedTokenRepository;
+import org.govt.service.TokenRevocationService;
+import org.govt.service.UserDirectoryService;
+import org.govt.service.UserResolutionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * {@link WebSocketAuthInterceptor#preSend} for a CONNECT frame, with the
+ * user either trusted from the token (stateless) or resolved through the warm
+ * user cache, and for a SEND frame, which every chat message pays for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebSocketAuthBenchmark {
+
+    private static final String USER_ID = "652f0c1e8b3a4d2f9c1e0a11";
+
+    @Param({ "true", "false" })
+    public boolean stateless;
+
+    private WebSocketAuthInterceptor interceptor;
+    private Message<byte[]> connect;
+    private Message<byte[]> send;
+
+    @Setup
+    public void setup() {
+        JwtUtil jwtUtil = new JwtUtil();
+        UserAccount account = new UserAccount("supervisor1", UserRole.SUPERVISOR, USER_ID);
+
+        UserDirectoryService userDirectory = new UserDirectoryService() {
+            @Override
+            public UserAccount findByUsername(String username) {
+                return account.getUsername().equals(username) ? account : null;
+            }
+        };
+        UserResolutionService userResolution = new UserResolutionService(300, 10_000);
+        Fixtures.inject(userResolution, "userDirectory", userDirectory);
+
+        TokenRevocationService revocation = new TokenRevocationService(30, 50_000);
+        Fixtures.inject(revocation, "revokedTokenRepository", Fixtures.repository(RevokedTokenRepository.class,
+                RevokedToken.class, null, Map.of("existsById", args -> false)));
+
+        interceptor = new WebSocketAuthInterceptor(100);
+        Fixtures.inject(interceptor, "jwtUtil", jwtUtil);
+        Fixtures.inject(interceptor, "userResolutionService", userResolution);
+        Fixtures.inject(interceptor, "tokenRevocationService", revocation);
+        Fixtures.inject(interceptor, "stateless", stateless);
+
+        String token = jwtUtil.generateTokenWithRole(account.getUsername(), USER_ID, UserRole.SUPERVISOR);
+
+        StompHeaderAccessor connectHeaders = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connectHeaders.setSessionId("session-1");
+        connectHeaders.setNativeHeader("Authorization", "Bearer " + token);
+        connectHeaders.setLeaveMutable(true);
+        connect = MessageBuilder.createMessage(new byte[0], connectHeaders.getMessageHeaders());
+
+        StompHeaderAccessor sendHeaders = StompHeaderAccessor.create(StompCommand.SEND);
+        sendHeaders.setSessionId("session-1");
+        sendHeaders.setDestination("/app/chat.send");
+        sendHeaders.setLeaveMutable(true);
+        send = MessageBuilder.createMessage(
+                "{\"receiverId\":\"652f0c1e8b3a4d2f9c1e0a12\",\"content\":\"hello\"}".getBytes(),
+                sendHeaders.getMessageHeaders());
+    }
+
+    @Benchmark
+    public Message<?> connectFrame() {
+        return interceptor.preSend(connect, null);
+    }
+
+    @Benchmark
+    public Message<?> sendFrame() {
+        return interceptor.preSend(send, null);
+    }
+}
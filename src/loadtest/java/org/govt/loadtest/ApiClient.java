@@ -0,0 +1,133 @@
+package org.govt.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Blocking JSON client for the REST API. Any non-2xx response is an error, so
+ * it shows up in the scenario's error count rather than as a fast success.
+ */
+final class ApiClient {
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    JsonNode get(String path, String token) throws IOException, InterruptedException {
+        return json(send(request(path, token).GET().build()));
+    }
+
+    JsonNode post(String path, String token, Object body) throws IOException, InterruptedException {
+        return json(send(request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build()));
+    }
+
+    // Raw bytes; headers are name, value pairs
+    JsonNode put(String path, String token, byte[] body, String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = request(path, token)
+                .header("Content-Type", "application/octet-stream")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(body));
+        for (int i = 0; i < headers.length; i += 2) {
+            builder.header(headers[i], headers[i + 1]);
+        }
+        return json(send(builder.build()));
+    }
+
+    JsonNode postForm(String path, String token) throws IOException, InterruptedException {
+        return json(send(request(path, token).POST(HttpRequest.BodyPublishers.noBody()).build()));
+    }
+
+    // multipart/form-data with one file part and plain text fields
+    JsonNode upload(String path, String token, String fileName, byte[] content, String... fields)
+            throws IOException, InterruptedException {
+        String boundary = "loadtest-" + UUID.randomUUID();
+        List<byte[]> parts = new ArrayList<>();
+        for (int i = 0; i < fields.length; i += 2) {
+            parts.add(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + fields[i] + "\"\r\n\r\n"
+                    + fields[i + 1] + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        parts.add(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"" + fileName
+                + "\"\r\nContent-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        parts.add(content);
+        parts.add(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return json(send(request(path, token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArrays(parts))
+                .build()));
+    }
+
+    // Reads the whole body and returns its size; headers are name, value pairs
+    long download(String path, String token, String... headers) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = get(path, token, headers);
+        try (InputStream body = response.body()) {
+            long size = body.transferTo(OutputStream.nullOutputStream());
+            check(response.statusCode(), path);
+            return size;
+        }
+    }
+
+    // For responses that are not 2xx by design, e.g. 304
+    int status(String path, String token, String... headers) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = get(path, token, headers);
+        try (InputStream body = response.body()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            return response.statusCode();
+        }
+    }
+
+    private HttpResponse<InputStream> get(String path, String token, String... headers)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = request(path, token).GET();
+        for (int i = 0; i < headers.length; i += 2) {
+            builder.header(headers[i], headers[i + 1]);
+        }
+        return http.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        check(response.statusCode(), request.uri().getPath());
+        return response;
+    }
+
+    private static void check(int status, String path) {
+        if (status < 200 || status >= 300) {
+            throw new IllegalStateException("HTTP " + status + " from " + path);
+        }
+    }
+
+    private JsonNode json(HttpResponse<byte[]> response) throws IOException {
+        return response.body().length == 0 ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+    }
+}
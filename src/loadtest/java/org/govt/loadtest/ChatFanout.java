@@ -0,0 +1,96 @@
+package org.govt.loadtest;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+/**
+ * Chat over STOMP: every client connects with its token, subscribes to its
+ * message queue and sends messages to the other clients in turn. The latency
+ * of a message is from just before SEND to its arrival at the receiver; the
+ * send time travels in the message content, which works because all clients
+ * run in this JVM.
+ */
+final class ChatFanout {
+
+    private static final String PREFIX = "loadtest:";
+
+    private final String wsUrl;
+
+    ChatFanout(String wsUrl) {
+        this.wsUrl = wsUrl;
+    }
+
+    // users: userId -> token
+    Recorder run(Map<String, String> users, int messagesPerUser) throws Exception {
+        List<String> userIds = new ArrayList<>(users.keySet());
+        int total = userIds.size() * messagesPerUser;
+        Recorder recorder = new Recorder("chat.fanout", total);
+        CountDownLatch received = new CountDownLatch(total);
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+
+        List<StompSession> sessions = new ArrayList<>();
+        try {
+            for (String userId : userIds) {
+                StompHeaders connectHeaders = new StompHeaders();
+                connectHeaders.add("Authorization", "Bearer " + users.get(userId));
+                StompSession session = stompClient
+                        .connectAsync(wsUrl, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+                        })
+                        .get(10, TimeUnit.SECONDS);
+                session.subscribe("/user/queue/messages", new StompFrameHandler() {
+                    @Override
+                    @NonNull
+                    public Type getPayloadType(@NonNull StompHeaders headers) {
+                        return Map.class;
+                    }
+
+                    @Override
+                    public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                        Object content = ((Map<?, ?>) payload).get("content");
+                        if (content instanceof String text && text.startsWith(PREFIX)) {
+                            recorder.record(System.nanoTime() - Long.parseLong(text.substring(PREFIX.length())));
+                            received.countDown();
+                        }
+                    }
+                });
+                sessions.add(session);
+            }
+            // Subscriptions are registered asynchronously by the broker
+            Thread.sleep(500);
+
+            recorder.start();
+            for (int m = 0; m < messagesPerUser; m++) {
+                for (int s = 0; s < sessions.size(); s++) {
+                    String receiverId = userIds.get((s + 1 + m % (userIds.size() - 1)) % userIds.size());
+                    sessions.get(s).send("/app/chat.send",
+                            Map.of("receiverId", receiverId, "content", PREFIX + System.nanoTime()));
+                }
+            }
+            if (!received.await(60, TimeUnit.SECONDS)) {
+                recorder.error(new IllegalStateException(received.getCount() + " messages not delivered within 60s"));
+            }
+            recorder.stop();
+        } finally {
+            sessions.forEach(StompSession::disconnect);
+            stompClient.stop();
+        }
+        return recorder;
+    }
+}
@@ -0,0 +1,349 @@
+package org.govt.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.govt.Main;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * End-to-end load test. Boots the application on a random port against an
+ * in-memory Mongo server (or the server given by loadtest.mongo.uri), seeds
+ * users of all five roles over the API and then runs each workload in turn,
+ * reporting throughput and p50/p90/p99/max latency per scenario.
+ *
+ * The in-memory server keeps runs reproducible and needs nothing installed,
+ * but it is not a real mongod: compare runs with each other, and point
+ * loadtest.mongo.uri at a real server for absolute numbers.
+ *
+ * Settings (system properties): loadtest.users per role (10),
+ * loadtest.requests per scenario (1000), loadtest.threads (16),
+ * loadtest.projects (100), loadtest.document-kb (256),
+ * loadtest.chat-messages per user (50), loadtest.report (target/loadtest-report.csv).
+ */
+public final class LoadTest {
+
+    private static final String[] ROLES = { "govt", "projectmanager", "contractor", "supervisor", "supplier" };
+    private static final String PASSWORD = "LoadTest#2024";
+
+    private record Session(String role, String username, String userId, String token) {
+    }
+
+    private final int users = Integer.getInteger("loadtest.users", 10);
+    private final int requests = Integer.getInteger("loadtest.requests", 1000);
+    private final int threads = Integer.getInteger("loadtest.threads", 16);
+    private final int projectCount = Integer.getInteger("loadtest.projects", 100);
+    private final int documentKb = Integer.getInteger("loadtest.document-kb", 256);
+    private final int chatMessages = Integer.getInteger("loadtest.chat-messages", 50);
+    private final Path reportFile = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.csv"));
+
+    private final List<Recorder> results = new ArrayList<>();
+    private final Map<String, List<Session>> sessions = new LinkedHashMap<>();
+    private ApiClient api;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        String mongoUri = System.getProperty("loadtest.mongo.uri");
+        MongoServer mongoServer = null;
+        if (mongoUri == null) {
+            mongoServer = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = mongoServer.bind();
+            mongoUri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/loadtest";
+        }
+
+        // Command-line arguments, so they win over application.properties (and its production database)
+        String uploadLimit = (documentKb / 1024 + 2) + "MB";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Main.class).run(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.data.mongodb.uri=" + mongoUri,
+                "--spring.data.mongodb.database=loadtest",
+                "--spring.servlet.multipart.max-file-size=" + uploadLimit,
+                "--spring.servlet.multipart.max-request-size=" + uploadLimit,
+                // Every client logs in from this address; the limiter would measure itself
+                "--auth.rate-limit.enabled=false",
+                "--logging.level.root=WARN");
+        try {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            api = new ApiClient("http://localhost:" + port);
+            System.out.printf("Application on port %d, Mongo %s%n", port, mongoUri);
+
+            runAll(port);
+            report();
+        } finally {
+            context.close();
+            if (mongoServer != null) {
+                mongoServer.shutdownNow();
+            }
+        }
+    }
+
+    private void runAll(int port) throws Exception {
+        for (String role : ROLES) {
+            results.add(Scenario.run("register." + role, users, Math.min(threads, users),
+                    i -> api.post("/auth/register/" + role, null, registration(role, i))));
+        }
+
+        for (String role : ROLES) {
+            List<Session> loggedIn = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                try {
+                    loggedIn.add(login(role, i));
+                } catch (IOException | RuntimeException e) {
+                    System.out.printf("Could not log in %s: %s%n", username(role, i), e.getMessage());
+                }
+            }
+            sessions.put(role, loggedIn);
+            results.add(Scenario.run("login." + role, requests, threads, i -> login(role, i % users)));
+        }
+
+        List<String> projectIds = new ArrayList<>();
+        results.add(Scenario.run("projects.create", projectCount, threads, i -> {
+            Session pm = session("projectmanager", i);
+            JsonNode project = api.post("/projects/pm/" + pm.userId() + "/dept/roads/name/" + pm.username(),
+                    pm.token(), project(i));
+            synchronized (projectIds) {
+                projectIds.add(project.get("id").asText());
+            }
+        }));
+        if (projectIds.isEmpty()) {
+            System.out.println("No projects could be created, skipping the project workloads");
+            return;
+        }
+
+        results.add(Scenario.run("projects.page", requests, threads,
+                i -> api.get("/projects/page?limit=20", session("contractor", i).token())));
+        results.add(Scenario.run("projects.byId", requests, threads,
+                i -> api.get("/projects/" + projectIds.get(i % projectIds.size()), session("supervisor", i).token())));
+        results.add(Scenario.run("projects.byPm", requests, threads, i -> {
+            Session pm = session("projectmanager", i);
+            api.get("/projects/pm/" + pm.userId() + "/page?limit=20", pm.token());
+        }));
+
+        // Every contractor bids on every project once, up to `requests` bids
+        int bids = Math.min(requests, projectIds.size() * users);
+        results.add(Scenario.run("bids.submit", bids, threads, i -> {
+            Session contractor = session("contractor", i / projectIds.size());
+            Map<String, Object> bid = new LinkedHashMap<>();
+            bid.put("projectId", projectIds.get(i % projectIds.size()));
+            bid.put("contractorId", contractor.userId());
+            bid.put("contractorName", contractor.username());
+            bid.put("bidAmount", 1_000_000 + i);
+            bid.put("timelineEstimate", "12 months");
+            bid.put("proposalText", "Load test proposal " + i);
+            api.post("/bids", contractor.token(), bid);
+        }));
+        results.add(Scenario.run("bids.forProject", requests, threads,
+                i -> api.get("/bids/project/" + projectIds.get(i % projectIds.size()), session("projectmanager", i).token())));
+        // Bids are keyed by project id, so a project keeps only its latest bid: accept that one
+        List<String> winners = new ArrayList<>();
+        for (String projectId : projectIds) {
+            JsonNode projectBids = api.get("/bids/project/" + projectId, session("projectmanager", 0).token());
+            winners.add(projectBids.isEmpty() ? "" : projectBids.get(0).get("contractorId").asText());
+        }
+        results.add(Scenario.run("bids.accept", projectIds.size(), threads, i -> {
+            List<String> supplierIds = List.of(session("supplier", i).userId());
+            api.post("/projects/" + projectIds.get(i) + "/finalize/contractor/" + winners.get(i)
+                    + "/supervisor/" + session("supervisor", i).userId() + "/suppliers",
+                    session("projectmanager", i).token(), supplierIds);
+        }));
+
+        List<String> fundIds = new ArrayList<>();
+        results.add(Scenario.run("funds.request", requests, threads, i -> {
+            Session pm = session("projectmanager", i);
+            Map<String, Object> txn = new LinkedHashMap<>();
+            txn.put("fromUserId", pm.userId());
+            txn.put("fromRole", "PROJECT_MANAGER");
+            txn.put("toUserId", sessions.get("govt").isEmpty() ? null : session("govt", i).userId());
+            txn.put("toRole", "GOVT");
+            txn.put("projectId", projectIds.get(i % projectIds.size()));
+            txn.put("amount", new BigDecimal("1000.00"));
+            txn.put("purpose", "Load test");
+            JsonNode saved = api.post("/funds/request", pm.token(), txn);
+            synchronized (fundIds) {
+                fundIds.add(saved.get("id").asText());
+            }
+        }));
+        if (sessions.get("govt").isEmpty()) {
+            System.out.println("No govt user could log in, skipping funds.approve");
+        } else {
+            results.add(Scenario.run("funds.approve", fundIds.size(), threads,
+                    i -> api.postForm("/funds/approve?txnId=" + fundIds.get(i) + "&approve=true", session("govt", i).token())));
+        }
+
+        byte[] document = new byte[documentKb * 1024];
+        ThreadLocalRandom.current().nextBytes(document);
+        List<String> fileIds = new ArrayList<>();
+        int uploads = Math.max(1, requests / 10);
+        results.add(Scenario.run("documents.upload", uploads, threads, i -> {
+            Session contractor = session("contractor", i);
+            JsonNode uploaded = api.upload("/documents/upload", contractor.token(), "document-" + i + ".bin", document,
+                    "entityType", "project", "entityId", projectIds.get(i % projectIds.size()),
+                    "purpose", "blueprint", "userId", contractor.userId(), "role", "CONTRACTOR");
+            synchronized (fileIds) {
+                fileIds.add(uploaded.get("fileId").asText());
+            }
+        }));
+        // The same content again, named by its hash instead of uploaded
+        String documentHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(document));
+        results.add(Scenario.run("documents.link", uploads, threads, i -> {
+            Session contractor = session("contractor", i);
+            api.postForm("/documents/link?sha256=" + documentHash + "&fileName=linked-" + i + ".bin"
+                    + "&entityType=project&entityId=" + projectIds.get(i % projectIds.size())
+                    + "&purpose=blueprint&userId=" + contractor.userId() + "&role=CONTRACTOR", contractor.token());
+        }));
+        // Resumable upload in parts of one GridFS chunk, with the first part sent twice as a retry
+        int partSize = 255 * 1024;
+        results.add(Scenario.run("documents.chunked", uploads, threads, i -> {
+            Session contractor = session("contractor", i);
+            JsonNode upload = api.post("/documents/uploads", contractor.token(), Map.of(
+                    "fileName", "chunked-" + i + ".bin", "contentType", "application/octet-stream",
+                    "length", document.length, "partSize", partSize,
+                    "entityType", "project", "entityId", projectIds.get(i % projectIds.size()),
+                    "purpose", "blueprint", "userId", contractor.userId(), "role", "CONTRACTOR"));
+            String uploadId = upload.get("id").asText();
+            int parts = upload.get("partCount").asInt();
+            for (int part = parts - 1; part >= -1; part--) {
+                int n = Math.max(part, 0);
+                byte[] bytes = Arrays.copyOfRange(document, n * partSize, Math.min(document.length, (n + 1) * partSize));
+                api.put("/documents/uploads/" + uploadId + "/parts/" + n, contractor.token(), bytes,
+                        "X-Part-SHA256", HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)));
+            }
+            String fileId = api.postForm("/documents/uploads/" + uploadId + "/commit", contractor.token()).get("fileId").asText();
+            long size = api.download("/documents/download/" + fileId, contractor.token());
+            if (size != document.length) {
+                throw new IllegalStateException("Committed upload has " + size + " bytes, expected " + document.length);
+            }
+        }));
+        if (!fileIds.isEmpty()) {
+            results.add(Scenario.run("documents.download", requests, threads,
+                    i -> api.download("/documents/download/" + fileIds.get(i % fileIds.size()), session("supervisor", i).token())));
+            // A download resumed halfway, and a cached copy revalidated by its ETag
+            int half = document.length / 2;
+            results.add(Scenario.run("documents.resume", requests, threads, i -> {
+                long size = api.download("/documents/download/" + fileIds.get(i % fileIds.size()), session("supervisor", i).token(),
+                        "Range", "bytes=" + half + "-");
+                if (size != document.length - half) {
+                    throw new IllegalStateException("Range returned " + size + " bytes, expected " + (document.length - half));
+                }
+            }));
+            results.add(Scenario.run("documents.revalidate", requests, threads, i -> {
+                String fileId = fileIds.get(i % fileIds.size());
+                int status = api.status("/documents/download/" + fileId, session("supervisor", i).token(),
+                        "If-None-Match", "\"" + fileId + "\"");
+                if (status != 304) {
+                    throw new IllegalStateException("HTTP " + status + " for a current ETag, expected 304");
+                }
+            }));
+        }
+
+        Map<String, String> chatUsers = new LinkedHashMap<>();
+        for (String role : List.of("contractor", "supervisor", "supplier")) {
+            for (Session session : sessions.get(role)) {
+                chatUsers.put(session.userId(), session.token());
+            }
+        }
+        results.add(new ChatFanout("ws://localhost:" + port + "/ws-chat/websocket").run(chatUsers, chatMessages));
+    }
+
+    private Session login(String role, int i) throws IOException, InterruptedException {
+        String username = username(role, i);
+        JsonNode login = api.post("/auth/login/" + role, null, Map.of("username", username, "password", PASSWORD));
+        return new Session(role, username, login.get("data").get("id").asText(), login.get("token").asText());
+    }
+
+    private Session session(String role, int i) {
+        List<Session> roleSessions = sessions.get(role);
+        if (roleSessions == null || roleSessions.isEmpty()) {
+            throw new IllegalStateException("No " + role + " is logged in");
+        }
+        return roleSessions.get(i % roleSessions.size());
+    }
+
+    private static String username(String role, int i) {
+        return "lt-" + role + "-" + i;
+    }
+
+    private static Map<String, Object> registration(String role, int i) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("name", "Load Test " + role + " " + i);
+        user.put("username", username(role, i));
+        user.put("password", PASSWORD);
+        user.put("DOB", "1990-01-01");
+        user.put("email", username(role, i) + "@example.org");
+        user.put("phone", 9_000_000_000L + i);
+        user.put("gst_number", "GST" + i);
+        user.put("govt_Id", "GOV" + i);
+        user.put("govt_department", "roads");
+        user.put("address", address(i));
+        return user;
+    }
+
+    private static Map<String, Object> project(int i) {
+        Map<String, Object> project = new LinkedHashMap<>();
+        project.put("title", "Load test project " + i);
+        project.put("description", "Road resurfacing, package " + i);
+        project.put("location", address(i));
+        project.put("totalBudget", new BigDecimal("50000000.00"));
+        project.put("budgetApproved", new BigDecimal("40000000.00"));
+        project.put("budgetUsed", BigDecimal.ZERO);
+        project.put("requiredMaterials", List.of("Cement", "Steel", "Bitumen"));
+        return project;
+    }
+
+    private static Map<String, Object> address(int i) {
+        return Map.of(
+                "street", "Street " + (i % 20),
+                "city", "City " + (i % 5),
+                "state", "Maharashtra",
+                "zipCode", String.valueOf(400000 + i % 50),
+                "country", "India");
+    }
+
+    private void report() throws IOException {
+        System.out.println();
+        System.out.printf("%-20s %8s %7s %10s %9s %9s %9s %9s%n",
+                "scenario", "ok", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(reportFile))) {
+            csv.println("scenario,ok,errors,throughput_per_s,p50_ms,p90_ms,p99_ms,max_ms");
+            for (Recorder result : results) {
+                double[] p = result.percentilesMillis(50, 90, 99, 100);
+                System.out.printf(Locale.ROOT, "%-20s %8d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                        result.name(), result.count(), result.errors(), result.throughput(), p[0], p[1], p[2], p[3]);
+                csv.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f%n",
+                        result.name(), result.count(), result.errors(), result.throughput(), p[0], p[1], p[2], p[3]);
+            }
+        }
+        for (Recorder result : results) {
+            if (result.errors() > 0) {
+                System.out.printf("%s: last error %s%n", result.name(), result.lastError());
+            }
+        }
+        System.out.println("Report written to " + reportFile);
+    }
+}
@@ -0,0 +1,82 @@
+package org.govt.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies of one scenario. The number of operations is known up front, so
+ * each one gets its own slot and recording needs no lock.
+ */
+final class Recorder {
+
+    private final String name;
+    private final long[] latencies;
+    private final AtomicInteger recorded = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile String lastError;
+    private long startNanos;
+    private long endNanos;
+
+    Recorder(String name, int expected) {
+        this.name = name;
+        this.latencies = new long[expected];
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    void record(long nanos) {
+        int slot = recorded.getAndIncrement();
+        if (slot < latencies.length) {
+            latencies[slot] = nanos;
+        }
+    }
+
+    void error(Exception e) {
+        errors.incrementAndGet();
+        lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    String name() {
+        return name;
+    }
+
+    int count() {
+        return Math.min(recorded.get(), latencies.length);
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    String lastError() {
+        return lastError;
+    }
+
+    double throughput() {
+        double seconds = (endNanos - startNanos) / 1e9;
+        return seconds > 0 ? count() / seconds : 0;
+    }
+
+    // Percentiles in milliseconds, nearest-rank
+    double[] percentilesMillis(double... percentiles) {
+        long[] sorted = Arrays.copyOf(latencies, count());
+        Arrays.sort(sorted);
+        double[] result = new double[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            if (sorted.length == 0) {
+                continue;
+            }
+            int rank = (int) Math.ceil(percentiles[i] / 100.0 * sorted.length);
+            result[i] = sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package org.govt.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a fixed number of operations on a fixed number of threads (closed
+ * model: each thread starts its next operation when the previous one returns)
+ * and records the latency of each successful one.
+ */
+final class Scenario {
+
+    @FunctionalInterface
+    interface Operation {
+        void run(int index) throws Exception;
+    }
+
+    private Scenario() {
+    }
+
+    static Recorder run(String name, int count, int threads, Operation operation) throws Exception {
+        Recorder recorder = new Recorder(name, count);
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            recorder.start();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        try {
+                            operation.run(i);
+                            recorder.record(System.nanoTime() - start);
+                        } catch (Exception e) {
+                            recorder.error(e);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            recorder.stop();
+        } finally {
+            pool.shutdownNow();
+        }
+        return recorder;
+    }
+}
@@ -4,11 +4,14 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.govt.repository.*;
+import org.govt.Enums.UserRole;
+import org.govt.model.UserAccount;
+import org.govt.service.TokenRevocationService;
+import org.govt.service.UserResolutionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,19 +25,14 @@ public class JwtFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserSupplierRepository userSupplier;
+    private UserResolutionService userResolutionService;
 
     @Autowired
-    private UserContractorRepository userContractor;
+    private TokenRevocationService tokenRevocationService;
 
-    @Autowired
-    private UserGovtRepository usergovt;
-
-    @Autowired
-    private UserProjectManagerRepository userProject;
-
-    @Autowired
-    private UserSupervisorRepository userSupervisor;
+    // When enabled, role-tagged tokens are trusted as-is and no user lookup is made
+    @Value("${auth.stateless:false}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -43,44 +41,45 @@ public class JwtFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
         String username = null;
+        VerifiedToken verified = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username = jwtUtil.extractUsername(token);
+            String token = authHeader.substring(7);
+            // Verified once; every claim below is read from this object
+            verified = jwtUtil.verify(token);
+            username = verified.getUsername();
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = null;
-
-            // Try to find the user in each repository
-            if (userSupplier.findByUsername(username) != null) {
-                userDetails = userSupplier.findByUsername(username);
-            } else if (userContractor.findByUsername(username) != null) {
-                userDetails = userContractor.findByUsername(username);
-            } else if (userProject.findByUsername(username) != null) {
-                userDetails = userProject.findByUsername(username);
-            } else if (usergovt.findByUsername(username) != null) {
-                userDetails = usergovt.findByUsername(username);
-            } else if (userSupervisor.findByUsername(username) != null) {
-                userDetails = userSupervisor.findByUsername(username);
-            }
-
-            if (userDetails != null && jwtUtil.validateToken(token, userDetails)) {
-                // Extract user ID from token
-                String userId = jwtUtil.extractUserId(token);
-
-                // If userId is in token, use UserIdPrincipal to make it available via
-                // principal.getName()
-                Object principal = userDetails;
-                if (userId != null && !userId.isEmpty()) {
-                    principal = new UserIdPrincipal(userId, username);
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && !tokenRevocationService.isRevoked(verified.getTokenId())) {
+            UserRole role = verified.getRole();
+            String userId = verified.getUserId();
+            UsernamePasswordAuthenticationToken authToken = null;
+
+            if (stateless && role != null && verified.hasUserId()) {
+                authToken = new UsernamePasswordAuthenticationToken(
+                        new UserIdPrincipal(userId, username), null, verified.getAuthorities());
+            } else {
+                // Cached lookup; a role-tagged token narrows it to one collection
+                UserAccount userDetails = userResolutionService.resolve(username, role);
+
+                // A role claim that no longer matches the account (e.g. a reused username) is not honoured
+                if (userDetails != null && (role == null || role == userDetails.getRole())
+                        && jwtUtil.validateToken(verified, userDetails)) {
+                    // If userId is in token, use UserIdPrincipal to make it available via
+                    // principal.getName()
+                    Object principal = userDetails;
+                    if (verified.hasUserId()) {
+                        principal = new UserIdPrincipal(userId, username);
+                    }
+
+                    authToken = new UsernamePasswordAuthenticationToken(
+                            principal, null, userDetails.getAuthorities());
                 }
+            }
 
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        principal, null, userDetails.getAuthorities());
-
+            if (authToken != null) {
                 authToken.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request));
 
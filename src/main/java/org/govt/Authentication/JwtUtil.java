@@ -1,29 +1,106 @@
 package org.govt.Authentication;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.govt.Enums.UserRole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
 
 @Component
 public class JwtUtil {
     private final String SECRET_KEY = "HimanshuSecretKeyHimanshuSecretKey";
-    private final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final SecretKey key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private final JwtParser parser = Jwts.parser()
+            .verifyWith(key)
+            .build();
+
+    // Recently verified tokens keyed by signature, each held until the token expires
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    // auth.jwt.verify timers by outcome; absent for instances created outside Spring
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer failedTimer;
+
+    public JwtUtil() {
+        this(10_000);
+    }
+
+    @Autowired
+    public JwtUtil(@Value("${auth.token-cache.max-size:10000}") long maxCachedTokens) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxCachedTokens)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String signature, VerifiedToken verified, long currentTime) {
+                        if (verified.getExpiration() == null) {
+                            return TimeUnit.MINUTES.toNanos(5);
+                        }
+                        long remaining = verified.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String signature, VerifiedToken verified, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String signature, VerifiedToken verified, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry registry) {
+        this.cachedTimer = verifyTimer(registry, "cached");
+        this.verifiedTimer = verifyTimer(registry, "verified");
+        this.failedTimer = verifyTimer(registry, "failed");
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("auth.jwt.verify")
+                .description("JWT verification time")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
 
     // Original method for backward compatibility
     public String generateToken(String username) {
         return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 3600 * 2))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .subject(username)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 1000 * 3600 * 2))
+                .signWith(key)
                 .compact();
     }
 
@@ -33,36 +110,100 @@ public class JwtUtil {
         claims.put("userId", userId);
 
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 3600 * 2))
-                .signWith(key, SignatureAlgorithm.HS256)
+                .claims(claims)
+                .subject(username)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 1000 * 3600 * 2))
+                .signWith(key)
                 .compact();
     }
 
+    // Role-tagged token: carries everything needed to authenticate without a user lookup
+    public String generateTokenWithRole(String username, String userId, UserRole role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("role", role.name());
+        claims.put("authorities", List.of(role.authority()));
+
+        return Jwts.builder()
+                .claims(claims)
+                .id(UUID.randomUUID().toString())
+                .subject(username)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 1000 * 3600 * 2))
+                .signWith(key)
+                .compact();
+    }
+
+    /**
+     * Verifies the signature and expiry once and returns all claims the app uses.
+     * Throws {@link io.jsonwebtoken.JwtException} for invalid or expired tokens.
+     */
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        VerifiedToken cached = verifiedTokens.getIfPresent(signature);
+        // The full token must match, a reused signature with another payload is re-verified (and rejected)
+        if (cached != null && cached.getToken().equals(token)) {
+            record(cachedTimer, start);
+            return cached;
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (RuntimeException e) {
+            record(failedTimer, start);
+            throw e;
+        }
+        VerifiedToken verified = new VerifiedToken(
+                token,
+                claims.getId(),
+                claims.getSubject(),
+                claims.get("userId", String.class),
+                readRole(claims),
+                readAuthorities(claims),
+                claims.getExpiration());
+        verifiedTokens.put(signature, verified);
+        record(verifiedTimer, start);
+        return verified;
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parser()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).getUsername();
     }
 
     // NEW: Extract user ID from token
     public String extractUserId(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("userId", String.class);
+        return verify(token).getUserId();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()));
+        return validateToken(verify(token), userDetails);
+    }
+
+    public Boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.getUsername() != null && token.getUsername().equals(userDetails.getUsername());
+    }
+
+    private UserRole readRole(Claims claims) {
+        String role = claims.get("role", String.class);
+        return role != null ? UserRole.valueOf(role) : null;
+    }
+
+    private List<GrantedAuthority> readAuthorities(Claims claims) {
+        List<?> authorities = claims.get("authorities", List.class);
+        if (authorities == null) {
+            return List.of();
+        }
+        return authorities.stream()
+                .map(a -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(a)))
+                .toList();
     }
 }
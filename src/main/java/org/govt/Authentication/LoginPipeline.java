@@ -0,0 +1,148 @@
+package org.govt.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.govt.model.User_govt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Checks login passwords on a small pool sized to the CPUs instead of on
+ * Tomcat threads. The pool has a bounded queue; when it is full the login is
+ * refused with 429 and a Retry-After header, so a burst of logins cannot use
+ * up the servlet threads other requests need. The login endpoints return the
+ * future, which frees the servlet thread while the hash is checked.
+ *
+ * After a successful check the stored hash is replaced when the encoder asks
+ * for it (a higher BCrypt cost than the hash was made with), or when the
+ * stored value is a legacy plain-text password.
+ */
+@Service
+public class LoginPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginPipeline.class);
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 = one thread per available processor
+    @Value("${auth.login.threads:0}")
+    private int threads;
+
+    @Value("${auth.login.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.login.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+
+    @PostConstruct
+    void start() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "auth-login-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        rejected = Counter.builder("auth.login.rejected")
+                .description("Logins refused with 429 because the password pool was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.login.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Completes with whether rawPassword matches storedHash. entityClass and id
+     * identify the user document whose password field is updated on rehash.
+     * Throws TooManyRequestsException (429) when the pool is saturated.
+     */
+    public CompletableFuture<Boolean> verify(String rawPassword, String storedHash, Class<?> entityClass, String id) {
+        if (rawPassword == null || storedHash == null || storedHash.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> check(rawPassword, storedHash, entityClass, id), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many logins in progress, retry shortly", retryAfterSeconds);
+        }
+    }
+
+    private boolean check(String rawPassword, String storedHash, Class<?> entityClass, String id) {
+        if (!isBcrypt(storedHash)) {
+            // Only govt registration ever stored the password as entered; accept once and
+            // store it hashed. Every other role was hashed from the start.
+            if (entityClass != User_govt.class) {
+                return false;
+            }
+            boolean matches = MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedHash.getBytes(StandardCharsets.UTF_8));
+            if (matches) {
+                rehash(rawPassword, entityClass, id);
+            }
+            return matches;
+        }
+        if (!passwordEncoder.matches(rawPassword, storedHash)) {
+            return false;
+        }
+        if (passwordEncoder.upgradeEncoding(storedHash)) {
+            rehash(rawPassword, entityClass, id);
+        }
+        return true;
+    }
+
+    private void rehash(String rawPassword, Class<?> entityClass, String id) {
+        try {
+            // Only the password field, so a concurrent profile update is not overwritten
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                    Update.update("password", passwordEncoder.encode(rawPassword)), entityClass);
+            log.info("Rehashed password of {} {}", entityClass.getSimpleName(), id);
+        } catch (RuntimeException e) {
+            // The login itself succeeded; the next one tries again
+            log.warn("Could not rehash password of {} {}: {}", entityClass.getSimpleName(), id, e.getMessage());
+        }
+    }
+
+    private static boolean isBcrypt(String storedHash) {
+        return storedHash.startsWith("$2a$") || storedHash.startsWith("$2b$") || storedHash.startsWith("$2y$");
+    }
+}
@@ -0,0 +1,103 @@
+package org.govt.Authentication;
+
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Limits login attempts per client address and per username with token
+ * buckets, before the user lookup and the password check. The address limit
+ * slows a single client trying many accounts; the username limit slows many
+ * clients trying one account. Every attempt counts, successful or not.
+ *
+ * The address is the request's remote address; behind a proxy set
+ * server.forward-headers-strategy so it is the client's and not the proxy's.
+ * With auth.rate-limit.store=mongo the per-minute refill rate is also enforced
+ * across all nodes.
+ */
+@Service
+public class LoginRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private MongoLoginRateLimit shared;
+
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.rate-limit.stripes:65536}")
+    private int stripes;
+
+    @Value("${auth.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${auth.rate-limit.ip.refill-per-minute:30}")
+    private int ipRefillPerMinute;
+
+    @Value("${auth.rate-limit.username.capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${auth.rate-limit.username.refill-per-minute:5}")
+    private int usernameRefillPerMinute;
+
+    private StripedTokenBuckets ipBuckets;
+    private StripedTokenBuckets usernameBuckets;
+    private Counter ipThrottled;
+    private Counter usernameThrottled;
+
+    @PostConstruct
+    void init() {
+        ipBuckets = new StripedTokenBuckets(stripes, ipCapacity, ipRefillPerMinute);
+        usernameBuckets = new StripedTokenBuckets(stripes, usernameCapacity, usernameRefillPerMinute);
+        ipThrottled = throttledCounter("ip");
+        usernameThrottled = throttledCounter("username");
+        log.info("Login rate limit {} ({} stripes, ip {}+{}/min, username {}+{}/min, shared: {})",
+                enabled ? "on" : "off", stripes, ipCapacity, ipRefillPerMinute,
+                usernameCapacity, usernameRefillPerMinute, shared != null);
+    }
+
+    /**
+     * Takes a token for the request's address and for username, or throws
+     * TooManyRequestsException (429) naming when to retry.
+     */
+    public void check(HttpServletRequest request, String username) {
+        if (!enabled) {
+            return;
+        }
+        String ip = "ip:" + request.getRemoteAddr();
+        if (!ipBuckets.tryAcquire(ip) || (shared != null && !shared.tryAcquire(ip, ipRefillPerMinute))) {
+            ipThrottled.increment();
+            throw new TooManyRequestsException("Too many login attempts from this address",
+                    ipBuckets.secondsPerToken());
+        }
+        if (username == null || username.isBlank()) {
+            return;
+        }
+        String user = "user:" + username.trim().toLowerCase(Locale.ROOT);
+        if (!usernameBuckets.tryAcquire(user) || (shared != null && !shared.tryAcquire(user, usernameRefillPerMinute))) {
+            usernameThrottled.increment();
+            throw new TooManyRequestsException("Too many login attempts for this account",
+                    usernameBuckets.secondsPerToken());
+        }
+    }
+
+    private Counter throttledCounter(String key) {
+        return Counter.builder("auth.login.throttled")
+                .description("Login attempts refused by the rate limit")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+}
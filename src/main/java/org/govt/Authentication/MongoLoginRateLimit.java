@@ -0,0 +1,49 @@
+package org.govt.Authentication;
+
+import java.util.Date;
+
+import org.govt.model.LoginAttemptWindow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Login attempt counts shared by all nodes: one counter document per key and
+ * minute, incremented with a single upsert. Used behind the in-memory buckets,
+ * so it only sees attempts a node has not already refused, and it catches an
+ * attack spread over nodes that each stay under their local limit.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.rate-limit.store", havingValue = "mongo")
+public class MongoLoginRateLimit {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoLoginRateLimit.class);
+    private static final long WINDOW_MS = 60_000L;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Counts one attempt for key; false once this minute's count exceeds limitPerMinute. */
+    public boolean tryAcquire(String key, int limitPerMinute) {
+        long window = System.currentTimeMillis() / WINDOW_MS;
+        try {
+            LoginAttemptWindow counter = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(key + "@" + window)),
+                    new Update().inc("count", 1).setOnInsert("expiresAt", new Date((window + 2) * WINDOW_MS)),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    LoginAttemptWindow.class);
+            return counter == null || counter.getCount() <= limitPerMinute;
+        } catch (RuntimeException e) {
+            // The local buckets still apply; an unavailable database should not block logins
+            log.warn("Shared login rate limit unavailable: {}", e.getMessage());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.govt.Authentication;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed table of token buckets indexed by the hash of a key. Each bucket is a
+ * single long (last refill time in the high bits, milli-tokens in the low
+ * bits) updated by compare-and-set, so there are no locks and no per-key
+ * allocation. Keys that hash to the same stripe share a bucket; with enough
+ * stripes that only matters when an attacked key collides with a real one.
+ *
+ * A refused attempt does not write, so rejecting a flood costs one volatile
+ * read per attempt.
+ */
+final class StripedTokenBuckets {
+
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE_TOKEN = 1000;
+    // Largest capacity the token bits can hold
+    static final int MAX_CAPACITY = (int) (TOKEN_MASK / ONE_TOKEN);
+
+    private final AtomicLongArray state;
+    private final int shift;
+    private final long capacity;
+    private final long refillPerMinute;
+    // Offset so a used bucket never packs to 0, which marks an untouched one
+    private final long origin = System.nanoTime() - 1_000_000L;
+
+    StripedTokenBuckets(int stripes, int capacity, int refillPerMinute) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Bucket capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        if (refillPerMinute < 1) {
+            throw new IllegalArgumentException("Refill rate must be at least 1 per minute");
+        }
+        // Power of two, at least 16, so the stripe is the top bits of the hash
+        int size = Math.max(16, Integer.highestOneBit(Math.max(stripes, 2) - 1) << 1);
+        this.state = new AtomicLongArray(size);
+        this.shift = 32 - Integer.numberOfTrailingZeros(size);
+        this.capacity = capacity * ONE_TOKEN;
+        this.refillPerMinute = refillPerMinute;
+    }
+
+    /** Takes one token from key's bucket; false when it is empty. */
+    boolean tryAcquire(String key) {
+        int index = stripe(key);
+        while (true) {
+            long now = (System.nanoTime() - origin) / 1_000_000L;
+            long current = state.get(index);
+            long tokens = capacity;
+            if (current != 0) {
+                long elapsed = Math.max(0, now - (current >>> TOKEN_BITS));
+                // milli-tokens gained = elapsed ms * refillPerMinute / 60000 ms * 1000
+                tokens = Math.min(capacity, (current & TOKEN_MASK) + Math.min(elapsed, 3_600_000L) * refillPerMinute / 60);
+            }
+            if (tokens < ONE_TOKEN) {
+                return false;
+            }
+            if (state.compareAndSet(index, current, (now << TOKEN_BITS) | (tokens - ONE_TOKEN))) {
+                return true;
+            }
+        }
+    }
+
+    /** Seconds until an empty bucket has a token again. */
+    long secondsPerToken() {
+        return (60 + refillPerMinute - 1) / refillPerMinute;
+    }
+
+    private int stripe(String key) {
+        // Fibonacci hashing: similar keys (adjacent IPs) land on distant stripes
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+}
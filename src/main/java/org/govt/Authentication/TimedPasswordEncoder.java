@@ -0,0 +1,49 @@
+package org.govt.Authentication;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records how long password hashing and checking take ({@code auth.password}
+ * timer, tagged by operation). BCrypt is deliberately slow, so this is usually
+ * the largest part of a login request.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer upgradeTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.encodeTimer = timer(registry, "encode");
+        this.matchesTimer = timer(registry, "matches");
+        this.upgradeTimer = timer(registry, "upgrade-check");
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("auth.password")
+                .description("Password encoder time")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return upgradeTimer.record(() -> delegate.upgradeEncoding(encodedPassword));
+    }
+}
@@ -0,0 +1,23 @@
+package org.govt.Authentication;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 429 with a Retry-After header, for logins refused before any password work.
+ */
+public class TooManyRequestsException extends ResponseStatusException {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    public TooManyRequestsException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
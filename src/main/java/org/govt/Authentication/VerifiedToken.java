@@ -0,0 +1,67 @@
+package org.govt.Authentication;
+
+import java.util.Date;
+import java.util.List;
+
+import org.govt.Enums.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Immutable view of a JWT whose signature and expiry have been checked.
+ * Produced once per token by {@link JwtUtil#verify(String)} and reused for
+ * every claim the caller needs.
+ */
+public final class VerifiedToken {
+
+    private final String token;
+    private final String tokenId;
+    private final String username;
+    private final String userId;
+    private final UserRole role;
+    private final List<GrantedAuthority> authorities;
+    private final Date expiration;
+
+    VerifiedToken(String token, String tokenId, String username, String userId, UserRole role,
+            List<GrantedAuthority> authorities, Date expiration) {
+        this.token = token;
+        this.tokenId = tokenId;
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+        this.authorities = List.copyOf(authorities);
+        this.expiration = expiration;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    // null for tokens issued before roles were embedded
+    public UserRole getRole() {
+        return role;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public Date getExpiration() {
+        return expiration == null ? null : new Date(expiration.getTime());
+    }
+
+    public boolean hasUserId() {
+        return userId != null && !userId.isEmpty();
+    }
+}
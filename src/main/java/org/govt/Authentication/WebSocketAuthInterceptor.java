@@ -1,7 +1,12 @@
 package org.govt.Authentication;
 
-import org.govt.repository.*;
+import org.govt.Enums.UserRole;
+import org.govt.logging.LogSampler;
+import org.govt.model.UserAccount;
+import org.govt.service.TokenRevocationService;
+import org.govt.service.UserResolutionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
@@ -9,99 +14,117 @@ import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.GrantedAuthority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+
 @Component
 public class WebSocketAuthInterceptor implements ChannelInterceptor {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSocketAuthInterceptor.class);
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserSupplierRepository userSupplier;
+    private UserResolutionService userResolutionService;
 
     @Autowired
-    private UserContractorRepository userContractor;
+    private TokenRevocationService tokenRevocationService;
 
-    @Autowired
-    private UserGovtRepository usergovt;
+    @Value("${auth.stateless:false}")
+    private boolean stateless;
 
-    @Autowired
-    private UserProjectManagerRepository userProject;
+    private final LogSampler frameSampler;
 
-    @Autowired
-    private UserSupervisorRepository userSupervisor;
+    // Every SEND and heartbeat frame passes here: at DEBUG only one in `rate` is logged, TRACE logs all
+    public WebSocketAuthInterceptor(@Value("${logging.sample.stomp-frames:100}") long rate) {
+        this.frameSampler = new LogSampler(rate);
+    }
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
 
-        // Log all WebSocket commands for debugging
-        if (accessor != null) {
-            System.out.println("🔵 WebSocket Command: " + accessor.getCommand());
+        if (accessor != null && (log.isTraceEnabled() || (log.isDebugEnabled() && frameSampler.sample()))) {
+            log.debug("STOMP {} frame on session {}", accessor.getCommand(), accessor.getSessionId());
         }
 
         if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
-            System.out.println("🔵 WebSocket CONNECT request received");
+            log.debug("WebSocket CONNECT on session {}", accessor.getSessionId());
 
             String authHeader = accessor.getFirstNativeHeader("Authorization");
 
             if (authHeader == null) {
-                System.err.println("❌ No Authorization header found in WebSocket CONNECT");
+                log.warn("No Authorization header in WebSocket CONNECT");
                 return message;
             }
 
             if (!authHeader.startsWith("Bearer ")) {
-                System.err.println("❌ Authorization header does not start with 'Bearer '");
+                log.warn("Authorization header in WebSocket CONNECT does not start with 'Bearer '");
                 return message;
             }
 
             String token = authHeader.substring(7);
-            System.out.println("✅ JWT Token extracted: " + token.substring(0, Math.min(20, token.length())) + "...");
 
             try {
-                // Step 1: Extract username from token
-                String username = jwtUtil.extractUsername(token);
+                // Step 1: Verify token once and read its claims
+                VerifiedToken verified = jwtUtil.verify(token);
+                String username = verified.getUsername();
 
                 if (username == null || username.isEmpty()) {
-                    System.err.println("❌ Failed to extract username from JWT token");
+                    log.warn("WebSocket CONNECT token has no username");
                     return message;
                 }
 
-                System.out.println("✅ Username extracted from token: " + username);
-
                 // Step 2: Extract user ID from token
-                String userId = jwtUtil.extractUserId(token);
+                String userId = verified.getUserId();
 
                 if (userId == null || userId.isEmpty()) {
-                    System.err.println("❌ Failed to extract userId from JWT token");
-                    System.err.println("⚠️  This token may have been generated with the old method.");
-                    System.err.println("⚠️  Please re-login to get a new token with userId.");
+                    // Tokens issued before userId was added to the claims; the user must log in again
+                    log.warn("WebSocket CONNECT token for {} has no userId", username);
                     return message;
                 }
 
-                System.out.println("✅ User ID extracted from token: " + userId);
-
-                // Step 3: Find user in database for validation
-                UserDetails userDetails = findUserByUsername(username);
-
-                if (userDetails == null) {
-                    System.err.println("❌ User not found in database: " + username);
+                if (tokenRevocationService.isRevoked(verified.getTokenId())) {
+                    log.warn("WebSocket CONNECT with revoked token for {}", username);
                     return message;
                 }
 
-                System.out.println("✅ User found in database: " + userDetails.getUsername());
+                UserRole role = verified.getRole();
+                Collection<? extends GrantedAuthority> authorities;
 
-                // Step 4: Validate token
-                boolean isValid = jwtUtil.validateToken(token, userDetails);
+                if (stateless && role != null) {
+                    // Step 3/4: Role-tagged token, trust the verified claims
+                    authorities = verified.getAuthorities();
+                } else {
+                    // Step 3: Find user in database for validation
+                    UserAccount userDetails = findUserByUsername(username, role);
 
-                if (!isValid) {
-                    System.err.println("❌ JWT token validation failed for user: " + username);
-                    return message;
-                }
+                    if (userDetails == null) {
+                        log.warn("WebSocket CONNECT for unknown user {}", username);
+                        return message;
+                    }
+
+                    if (role != null && role != userDetails.getRole()) {
+                        log.warn("WebSocket CONNECT token for {} claims role {} but the account is {}",
+                                username, role, userDetails.getRole());
+                        return message;
+                    }
 
-                System.out.println("✅ JWT token validated successfully for user: " + username);
+                    // Step 4: Validate token
+                    boolean isValid = jwtUtil.validateToken(verified, userDetails);
+
+                    if (!isValid) {
+                        log.warn("WebSocket CONNECT token validation failed for {}", username);
+                        return message;
+                    }
+
+                    authorities = userDetails.getAuthorities();
+                }
 
                 // Step 5: Create custom principal with USER ID (not username)
                 UserIdPrincipal principal = new UserIdPrincipal(userId, username);
@@ -110,51 +133,27 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         principal, // Use custom principal
                         null,
-                        userDetails.getAuthorities());
+                        authorities);
 
                 accessor.setUser(authentication);
 
-                System.out
-                        .println("✅✅✅ WebSocket authentication SUCCESS! User ID stored: " + userId);
-                System.out.println("    - Principal name (USER ID): " + authentication.getName());
-                System.out.println("    - Username: " + username);
-                System.out.println("    - Authorities: " + authentication.getAuthorities());
+                log.debug("WebSocket session {} authenticated as {} (user id {}, authorities {}, stateless {})",
+                        accessor.getSessionId(), username, userId, authentication.getAuthorities(),
+                        stateless && role != null);
 
             } catch (Exception e) {
-                System.err.println("❌ WebSocket authentication FAILED with exception: " + e.getMessage());
-                e.printStackTrace();
+                log.warn("WebSocket authentication failed: {}", e.getMessage(), e);
             }
         }
 
         return message;
     }
 
-    private UserDetails findUserByUsername(String username) {
-        UserDetails userDetails = null;
-        String userType = null;
-
-        // Try to find the user in each repository
-        if (userSupplier.findByUsername(username) != null) {
-            userDetails = userSupplier.findByUsername(username);
-            userType = "Supplier";
-        } else if (userContractor.findByUsername(username) != null) {
-            userDetails = userContractor.findByUsername(username);
-            userType = "Contractor";
-        } else if (userProject.findByUsername(username) != null) {
-            userDetails = userProject.findByUsername(username);
-            userType = "Project Manager";
-        } else if (usergovt.findByUsername(username) != null) {
-            userDetails = usergovt.findByUsername(username);
-            userType = "Government";
-        } else if (userSupervisor.findByUsername(username) != null) {
-            userDetails = userSupervisor.findByUsername(username);
-            userType = "Supervisor";
-        }
+    private UserAccount findUserByUsername(String username, UserRole role) {
+        UserAccount userDetails = userResolutionService.resolve(username, role);
 
         if (userDetails != null) {
-            System.out.println("✅ User found as: " + userType + " (username: " + username + ")");
-        } else {
-            System.err.println("❌ User NOT found in any repository: " + username);
+            log.trace("WebSocket user {} resolved as {}", username, userDetails.getRole());
         }
 
         return userDetails;
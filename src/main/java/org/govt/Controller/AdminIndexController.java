@@ -0,0 +1,32 @@
+package org.govt.Controller;
+
+import java.util.List;
+
+import org.govt.model.IndexReport;
+import org.govt.service.IndexManagementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/indexes")
+public class AdminIndexController {
+
+    @Autowired
+    private IndexManagementService indexManagementService;
+
+    // Declared vs existing indexes per collection, plus indexes Mongo reports as never used
+    @GetMapping
+    public ResponseEntity<List<IndexReport>> report() {
+        return ResponseEntity.ok(indexManagementService.report());
+    }
+
+    @PostMapping("/ensure")
+    public ResponseEntity<List<IndexReport>> ensure() {
+        indexManagementService.ensureDeclaredIndexes();
+        return ResponseEntity.ok(indexManagementService.report());
+    }
+}
@@ -0,0 +1,23 @@
+package org.govt.Controller;
+
+import org.govt.model.WebSocketStats;
+import org.govt.service.WebSocketMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/websocket")
+public class AdminWebSocketController {
+
+    @Autowired
+    private WebSocketMetricsService webSocketMetricsService;
+
+    // Session counts, slow-consumer disconnects and channel executor queue depth
+    @GetMapping("/stats")
+    public ResponseEntity<WebSocketStats> stats() {
+        return ResponseEntity.ok(webSocketMetricsService.snapshot());
+    }
+}
@@ -1,9 +1,12 @@
 package org.govt.Controller;
 
 import java.security.Principal;
+import java.util.List;
 
 import org.govt.model.ChatMessage;
 import org.govt.service.ChatService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -12,6 +15,8 @@ import org.springframework.stereotype.Controller;
 @Controller
 public class ChatController {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatController.class);
+
     @Autowired
     private ChatService chatService;
 
@@ -23,7 +28,18 @@ public class ChatController {
             message.setSenderId(principal.getName());
             chatService.handleMessage(message);
         } else {
-            System.err.println("ERROR: Unauthenticated WebSocket message received");
+            log.warn("Unauthenticated WebSocket message received");
+        }
+    }
+
+    // Client confirms it displayed these messages; marked DELIVERED in the next batch.
+    // A missing or "null" body acknowledges nothing.
+    @MessageMapping("/chat.delivered")
+    public void delivered(@Payload(required = false) List<String> messageIds, Principal principal) {
+        if (principal != null) {
+            chatService.acknowledgeDelivery(principal.getName(), messageIds != null ? messageIds : List.of());
+        } else {
+            log.warn("Unauthenticated WebSocket message received");
         }
     }
 
@@ -1,27 +1,50 @@
 package org.govt.Controller;
 
 import java.security.Principal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.govt.model.ChatMessage;
-import org.govt.repository.ChatRepository;
+import org.govt.model.CursorPage;
 import org.govt.service.ChatService;
+import org.govt.service.PresenceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/chat")
 public class ChatHistoryController {
 
-    @Autowired
-    private ChatRepository chatRepository;
+    private static final Logger log = LoggerFactory.getLogger(ChatHistoryController.class);
+
     @Autowired
     private ChatService chatService;
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    // Chat list: each conversation's last message and this user's unread count
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
+
+        if (principal == null) {
+            log.warn("No authenticated user for inbox request");
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        return ResponseEntity.ok(chatService.getInbox(principal.getName(), before, limit));
+    }
 
     @GetMapping("/{otherUserId}")
     public ResponseEntity<?> getHistory(
@@ -30,27 +53,64 @@ public class ChatHistoryController {
 
         try {
             if (principal == null) {
-                System.err.println("ERROR: No authenticated user for chat history request");
+                log.warn("No authenticated user for chat history request");
                 return ResponseEntity.status(401).body("Unauthorized");
             }
 
             String currentUserId = principal.getName();
-            System.out.println("Fetching chat history between " + currentUserId + " and " + otherUserId);
 
-            List<ChatMessage> messages = chatRepository.findChatBetweenUsers(
-                    currentUserId,
-                    otherUserId);
+            List<ChatMessage> messages = chatService.getHistory(currentUserId, otherUserId);
 
-            System.out.println("✅ Found " + messages.size() + " messages");
+            log.debug("Found {} messages between {} and {}", messages.size(), currentUserId, otherUserId);
             return ResponseEntity.ok(messages);
 
         } catch (Exception e) {
-            System.err.println("❌ ERROR fetching chat history: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error fetching chat history with {}", otherUserId, e);
             return ResponseEntity.status(500).body("Error fetching chat history");
         }
     }
 
+    // Infinite scroll: latest `limit` messages older than `before` (cursor from the previous page)
+    @GetMapping("/{otherUserId}/page")
+    public ResponseEntity<?> getHistoryPage(
+            @PathVariable String otherUserId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
+
+        if (principal == null) {
+            log.warn("No authenticated user for chat history request");
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        CursorPage<ChatMessage> page = chatService.getHistoryPage(principal.getName(), otherUserId, before, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    // Catch-up after reconnecting: messages received after `since` (cursor of the last message the client has)
+    @GetMapping("/pending")
+    public ResponseEntity<?> getPending(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit,
+            Principal principal) {
+
+        if (principal == null) {
+            log.warn("No authenticated user for pending messages request");
+            return ResponseEntity.status(401).body("Unauthorized");
+        }
+
+        return ResponseEntity.ok(chatService.getPendingSince(principal.getName(), since, limit));
+    }
+
+    @GetMapping("/presence")
+    public ResponseEntity<Map<String, Boolean>> getPresence(@RequestParam List<String> users) {
+        Map<String, Boolean> online = new LinkedHashMap<>();
+        for (String user : users) {
+            online.put(user, presenceRegistry.isOnline(user));
+        }
+        return ResponseEntity.ok(online);
+    }
+
     @PutMapping("/read/{senderId}")
     public ResponseEntity<String> markAsRead(
             @PathVariable String senderId,
@@ -58,20 +118,18 @@ public class ChatHistoryController {
 
         try {
             if (principal == null) {
-                System.err.println("ERROR: No authenticated user for mark as read request");
+                log.warn("No authenticated user for mark as read request");
                 return ResponseEntity.status(401).body("Unauthorized");
             }
 
             String receiverId = principal.getName();
-            System.out.println("Marking messages from " + senderId + " to " + receiverId + " as READ");
 
             chatService.markMessagesAsRead(senderId, receiverId);
 
             return ResponseEntity.ok("Messages marked as READ");
 
         } catch (Exception e) {
-            System.err.println("❌ ERROR marking messages as read: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error marking messages from {} as read", senderId, e);
             return ResponseEntity.status(500).body("Error marking messages as read");
         }
     }
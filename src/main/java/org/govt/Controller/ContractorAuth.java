@@ -1,19 +1,25 @@
 package org.govt.Controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginRateLimiter;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Login;
 import org.govt.login_message.Register;
+import org.govt.model.CursorPage;
 import org.govt.model.Project;
+import org.govt.model.ProjectFilter;
 import org.govt.model.User_contractor;
+import org.govt.service.ProjectQueryService;
 import org.govt.service.UserContractorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/auth")
@@ -24,7 +30,10 @@ public class ContractorAuth {
 
     @Autowired
     private JwtUtil jwt;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    @Autowired
+    private ProjectQueryService projectQueryService;
 
     @PostMapping("/register/contractor")
     public Register register(@RequestBody User_contractor user) {
@@ -32,21 +41,19 @@ public class ContractorAuth {
     }
 
     @PostMapping("/login/contractor")
-    public ResponseEntity<Login<User_contractor>> login(@RequestBody User_contractor user) {
-        User_contractor contractor = userContractorService.findByUsername(user.getUsername());
-
-        if (contractor != null && passwordEncoder.matches(user.getPassword(), contractor.getPassword())) {
-
-            String token = jwt.generateTokenWithUserId(contractor.getUsername(), contractor.getId());
-            return ResponseEntity.ok(
-                    new Login<>(
-                            "LoggedIn Successfully!!!",
-                            token,
-                            contractor));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new Login<>("Invalid Credentials!!!", "", null));
-        }
+    public CompletableFuture<ResponseEntity<Login<User_contractor>>> login(@RequestBody User_contractor user, HttpServletRequest request) {
+        // Refused before the user lookup and the password check
+        loginRateLimiter.check(request, user.getUsername());
+        // The password is checked on the login pool; the servlet thread is released meanwhile
+        return userContractorService.authenticateContractor(user.getUsername(), user.getPassword())
+                .thenApply(contractor -> {
+                    if (contractor == null) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(new Login<User_contractor>("Invalid Credentials!!!", "", null));
+                    }
+                    String token = jwt.generateTokenWithRole(contractor.getUsername(), contractor.getId(), UserRole.CONTRACTOR);
+                    return ResponseEntity.ok(new Login<>("LoggedIn Successfully!!!", token, contractor));
+                });
     }
 
     @GetMapping("/contractor/getProject/{id}")
@@ -54,4 +61,14 @@ public class ContractorAuth {
         return ResponseEntity.ok(userContractorService.getProject(id));
     }
 
+    @GetMapping("/contractor/getProject/{id}/page")
+    public ResponseEntity<CursorPage<Project>> getProjectPage(@PathVariable String id,
+            ProjectFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean summary) {
+        filter.setContractorId(id);
+        return ResponseEntity.ok(projectQueryService.page(filter, cursor, limit, summary));
+    }
+
 }
@@ -1,27 +1,34 @@
 package org.govt.Controller;
 
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 
 import org.bson.types.ObjectId;
+import org.govt.Enums.UserRole;
 import org.govt.model.DocumentUpload;
+import org.govt.model.UploadSession;
+import org.govt.model.UserAccount;
+import org.govt.service.ChunkedUploadService;
+import org.govt.service.DocumentDownloadService;
 import org.govt.service.DocumentUploadService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.util.StreamUtils;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.mongodb.client.gridfs.model.GridFSFile;
-
 import io.jsonwebtoken.io.IOException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 
@@ -32,6 +39,12 @@ public class DocumentUploadController {
 
     @Autowired
     private DocumentUploadService service;
+
+    @Autowired
+    private DocumentDownloadService downloadService;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
 @PostMapping("/upload")
 public ResponseEntity<DocumentUpload> upload(
         @RequestParam("file") MultipartFile file,
@@ -45,14 +58,67 @@ public ResponseEntity<DocumentUpload> upload(
 }
 
 
-    @GetMapping("/download/{fileId}")
-    public void download(@PathVariable String fileId, HttpServletResponse response) throws IOException, java.io.IOException {
-        GridFSFile file = service.getGridFSFile(fileId);
-        InputStream inputStream = service.getFileStream(fileId);
+    // Records already-stored content by its SHA-256 without uploading it; 404 means upload it
+    @PostMapping("/link")
+    public DocumentUpload link(
+            @RequestParam("sha256") String sha256,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "fileType", required = false) String fileType,
+            @RequestParam("entityType") String entityType,
+            @RequestParam("entityId") String entityId,
+            @RequestParam("purpose") String purpose,
+            @RequestParam("userId") String userId,
+            @RequestParam("role") String role) {
+        return service.link(sha256, fileName, fileType, entityType, entityId, purpose, userId, role);
+    }
+
+    // Only the uploader or a GOVT user may delete a document
+    @DeleteMapping("/{documentId}")
+    public ResponseEntity<Void> delete(@PathVariable String documentId, Authentication authentication) {
+        // Tokens without a userId claim authenticate as the UserAccount, whose profileId is that id
+        String requesterId = authentication.getPrincipal() instanceof UserAccount account
+                ? account.getProfileId()
+                : authentication.getName();
+        boolean govt = authentication.getAuthorities().stream()
+                .anyMatch(authority -> UserRole.GOVT.authority().equals(authority.getAuthority()));
+        service.delete(documentId, requesterId, govt);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Resumable upload: open a session, PUT its parts (any order, in parallel), then commit
+    @PostMapping("/uploads")
+    public UploadSession openUpload(@RequestBody UploadSession request) {
+        return chunkedUploadService.open(request);
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public UploadSession uploadStatus(@PathVariable String uploadId) {
+        return chunkedUploadService.status(uploadId);
+    }
+
+    // The body is the part's raw bytes; X-Part-SHA256 is their hex SHA-256
+    @PutMapping("/uploads/{uploadId}/parts/{part}")
+    public UploadSession putPart(@PathVariable String uploadId, @PathVariable int part,
+                                 @RequestHeader(value = "X-Part-SHA256", required = false) String sha256,
+                                 HttpServletRequest request) throws java.io.IOException {
+        return chunkedUploadService.putPart(uploadId, part, sha256, request.getInputStream());
+    }
 
-        response.setContentType(file.getMetadata().getString("_contentType"));
-        response.setHeader("Content-Disposition", "attachment; filename=\"" + file.getFilename() + "\"");
-        StreamUtils.copy(inputStream, response.getOutputStream());
+    @PostMapping("/uploads/{uploadId}/commit")
+    public DocumentUpload commitUpload(@PathVariable String uploadId) {
+        return chunkedUploadService.commit(uploadId);
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Supports Range/If-Range and answers If-None-Match/If-Modified-Since with 304
+    @GetMapping("/download/{fileId}")
+    public void download(@PathVariable String fileId, HttpServletRequest request, HttpServletResponse response) throws java.io.IOException {
+        downloadService.send(fileId, request, response);
     }
 
     @GetMapping("/{entityType}/{entityId}")
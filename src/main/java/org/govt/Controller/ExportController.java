@@ -0,0 +1,47 @@
+package org.govt.Controller;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import org.govt.model.FundTransaction;
+import org.govt.model.Project;
+import org.govt.model.SupplierPaymentRequest;
+import org.govt.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+// Full audit dumps as newline-delimited JSON, one document per line
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping("/projects")
+    public void exportProjects(HttpServletResponse response) throws IOException {
+        export(Project.class, "projects", response);
+    }
+
+    @GetMapping("/fund-transactions")
+    public void exportFundTransactions(HttpServletResponse response) throws IOException {
+        export(FundTransaction.class, "fund_transactions", response);
+    }
+
+    @GetMapping("/supplier-payments")
+    public void exportSupplierPayments(HttpServletResponse response) throws IOException {
+        export(SupplierPaymentRequest.class, "supplier_payments", response);
+    }
+
+    private void export(Class<?> type, String name, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"" + name + "-" + LocalDate.now() + ".ndjson\"");
+        exportService.exportNdjson(type, response.getOutputStream());
+    }
+}
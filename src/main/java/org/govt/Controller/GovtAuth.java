@@ -1,6 +1,10 @@
 package org.govt.Controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginRateLimiter;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Login;
 import org.govt.login_message.Register;
 import org.govt.model.User_govt;
@@ -10,6 +14,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/auth")
@@ -20,24 +26,28 @@ public class GovtAuth {
     @Autowired
     private JwtUtil jwt;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     @PostMapping("/register/govt")
     public Register register(@RequestBody User_govt userGovt) {
         return userGovtService.registerGovt(userGovt);
     }
 
     @PostMapping("/login/govt")
-    public ResponseEntity<Login<User_govt>> login(@RequestBody User_govt userGovt) {
-        if (userGovtService.authenticateGovt(userGovt.getUsername(), userGovt.getPassword())) {
-            User_govt govtUser = userGovtService.findByUsername(userGovt.getUsername());
-            return ResponseEntity.ok(
-                    new Login<>(
-                            "LoggedIn Successfully!!!",
-                            jwt.generateTokenWithUserId(govtUser.getUsername(), govtUser.getId()),
-                            govtUser));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new Login<>("Invalid Credentials!!!", "", null));
-        }
+    public CompletableFuture<ResponseEntity<Login<User_govt>>> login(@RequestBody User_govt userGovt, HttpServletRequest request) {
+        // Refused before the user lookup and the password check
+        loginRateLimiter.check(request, userGovt.getUsername());
+        // The password is checked on the login pool; the servlet thread is released meanwhile
+        return userGovtService.authenticateGovt(userGovt.getUsername(), userGovt.getPassword())
+                .thenApply(govtUser -> {
+                    if (govtUser == null) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(new Login<User_govt>("Invalid Credentials!!!", "", null));
+                    }
+                    String token = jwt.generateTokenWithRole(govtUser.getUsername(), govtUser.getId(), UserRole.GOVT);
+                    return ResponseEntity.ok(new Login<>("LoggedIn Successfully!!!", token, govtUser));
+                });
     }
 
 }
@@ -0,0 +1,42 @@
+package org.govt.Controller;
+
+import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.VerifiedToken;
+import org.govt.service.TokenRevocationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import io.jsonwebtoken.JwtException;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/auth")
+public class LogoutController {
+
+    @Autowired
+    private JwtUtil jwt;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Revokes the presented token; only role-tagged tokens carry a jti and can be revoked
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Missing token");
+        }
+
+        try {
+            VerifiedToken verified = jwt.verify(authHeader.substring(7));
+            if (verified.getTokenId() == null) {
+                return ResponseEntity.badRequest().body("Token cannot be revoked, please re-login");
+            }
+            tokenRevocationService.revoke(verified.getTokenId(), verified.getUsername(), verified.getExpiration());
+            return ResponseEntity.ok("Logged out");
+        } catch (JwtException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+    }
+}
@@ -4,9 +4,12 @@ import java.util.List;
 
 import org.govt.Enums.ProjectStatus;
 import org.govt.model.Address;
+import org.govt.model.CursorPage;
 import org.govt.model.Project;
+import org.govt.model.ProjectFilter;
 import org.govt.model.User_Supervisor;
 import org.govt.model.User_Supplier;
+import org.govt.service.ProjectQueryService;
 import org.govt.service.ProjectService;
 import org.govt.service.UserSupervisorService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +27,8 @@ public class ProjectController {
     private ProjectService projectService;
     @Autowired
     private UserSupervisorService user_Supervisor;
+    @Autowired
+    private ProjectQueryService projectQueryService;
 
     @PostMapping("/pm/{pmId}/dept/{departmentId}/name/{pmName}")
     public ResponseEntity<Project> createProject(@RequestBody Project project,
@@ -40,12 +45,31 @@ public class ProjectController {
         return ResponseEntity.ok(projects);
     }
 
+    // Paged listing, filters: status, departmentId, projectManagerId, supervisorId, contractorId, supplierId
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Project>> getProjectsPage(ProjectFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean summary) {
+        return ResponseEntity.ok(projectQueryService.page(filter, cursor, limit, summary));
+    }
+
     @GetMapping("/pm/{pmId}")
     public ResponseEntity<List<Project>> getMyProjects(@PathVariable String pmId) {
         List<Project> projects = projectService.listMyProjects(pmId);
         return ResponseEntity.ok(projects);
     }
 
+    @GetMapping("/pm/{pmId}/page")
+    public ResponseEntity<CursorPage<Project>> getMyProjectsPage(@PathVariable String pmId,
+            ProjectFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean summary) {
+        filter.setProjectManagerId(pmId);
+        return ResponseEntity.ok(projectQueryService.page(filter, cursor, limit, summary));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Project> getById(@PathVariable String id) {
         return ResponseEntity.ok(projectService.getById(id));
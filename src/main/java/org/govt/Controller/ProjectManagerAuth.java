@@ -1,6 +1,10 @@
 package org.govt.Controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginRateLimiter;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Login;
 import org.govt.login_message.Register;
 import org.govt.model.User_ProjectManager;
@@ -8,10 +12,10 @@ import org.govt.service.UserProjectManagerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/auth")
@@ -19,29 +23,30 @@ public class ProjectManagerAuth {
 
     @Autowired
     private UserProjectManagerService userProjectManagerService;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     @Autowired
     private JwtUtil jwt;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     @PostMapping("/register/projectmanager")
     public Register register(@RequestBody User_ProjectManager user) {
         return userProjectManagerService.registerProjectManager(user);
     }
 
     @PostMapping("/login/projectmanager")
-    public ResponseEntity<Login<User_ProjectManager>> login(@RequestBody User_ProjectManager userProjectManager) {
-        User_ProjectManager manager = userProjectManagerService.findByUsername(userProjectManager.getUsername());
-
-        if (manager != null && passwordEncoder.matches(userProjectManager.getPassword(), manager.getPassword())) {
-            String token = jwt.generateTokenWithUserId(manager.getUsername(), manager.getId());
-            return ResponseEntity.ok(
-                    new Login<>(
-                            "LoggedIn Successfully!!!",
-                            token,
-                            manager));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new Login<>("Invalid Credentials!!!", "", null));
-        }
+    public CompletableFuture<ResponseEntity<Login<User_ProjectManager>>> login(@RequestBody User_ProjectManager userProjectManager, HttpServletRequest request) {
+        // Refused before the user lookup and the password check
+        loginRateLimiter.check(request, userProjectManager.getUsername());
+        // The password is checked on the login pool; the servlet thread is released meanwhile
+        return userProjectManagerService.authenticateProjectManager(userProjectManager.getUsername(), userProjectManager.getPassword())
+                .thenApply(manager -> {
+                    if (manager == null) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(new Login<User_ProjectManager>("Invalid Credentials!!!", "", null));
+                    }
+                    String token = jwt.generateTokenWithRole(manager.getUsername(), manager.getId(), UserRole.PROJECT_MANAGER);
+                    return ResponseEntity.ok(new Login<>("LoggedIn Successfully!!!", token, manager));
+                });
     }
 }
@@ -1,21 +1,27 @@
 package org.govt.Controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import java.util.Optional;
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginRateLimiter;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Login;
 import org.govt.login_message.Register;
+import org.govt.model.CursorPage;
 import org.govt.model.Project;
+import org.govt.model.ProjectFilter;
 import org.govt.model.User_Supervisor;
+import org.govt.service.ProjectQueryService;
 import org.govt.service.UserSupervisorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/auth")
@@ -23,9 +29,12 @@ public class SupervisorAuth {
 
     @Autowired
     private UserSupervisorService userSupervisorService;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     @Autowired
     private JwtUtil jwt;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    @Autowired
+    private ProjectQueryService projectQueryService;
 
     @PostMapping("/register/supervisor")
     public Register register(@RequestBody User_Supervisor userSupervisor) {
@@ -33,21 +42,19 @@ public class SupervisorAuth {
     }
 
     @PostMapping("/login/supervisor")
-    public ResponseEntity<Login<User_Supervisor>> login(@RequestBody User_Supervisor userSupervisor) {
-        User_Supervisor supervisor = userSupervisorService.findByUsername(userSupervisor.getUsername());
-
-        if (supervisor != null && passwordEncoder.matches(userSupervisor.getPassword(), supervisor.getPassword())) {
-
-            String token = jwt.generateTokenWithUserId(supervisor.getUsername(), supervisor.getId());
-            return ResponseEntity.ok(
-                    new Login<>(
-                            "LoggedIn Successfully!!!",
-                            token,
-                            supervisor));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new Login<>("Invalid Credentials!!!", "", null));
-        }
+    public CompletableFuture<ResponseEntity<Login<User_Supervisor>>> login(@RequestBody User_Supervisor userSupervisor, HttpServletRequest request) {
+        // Refused before the user lookup and the password check
+        loginRateLimiter.check(request, userSupervisor.getUsername());
+        // The password is checked on the login pool; the servlet thread is released meanwhile
+        return userSupervisorService.authenticateSupervisor(userSupervisor.getUsername(), userSupervisor.getPassword())
+                .thenApply(supervisor -> {
+                    if (supervisor == null) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(new Login<User_Supervisor>("Invalid Credentials!!!", "", null));
+                    }
+                    String token = jwt.generateTokenWithRole(supervisor.getUsername(), supervisor.getId(), UserRole.SUPERVISOR);
+                    return ResponseEntity.ok(new Login<>("LoggedIn Successfully!!!", token, supervisor));
+                });
     }
 
     @GetMapping("/supervisors/getProject/{id}")
@@ -63,4 +70,14 @@ public class SupervisorAuth {
         return ResponseEntity.ok(projects);
     }
 
+    @GetMapping("/supervisors/getProject/{id}/page")
+    public ResponseEntity<CursorPage<Project>> getProjectPage(@PathVariable String id,
+            ProjectFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean summary) {
+        filter.setSupervisorId(id);
+        return ResponseEntity.ok(projectQueryService.page(filter, cursor, limit, summary));
+    }
+
 }
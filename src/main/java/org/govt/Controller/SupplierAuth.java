@@ -1,21 +1,27 @@
 package org.govt.Controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginRateLimiter;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Login;
 import org.govt.login_message.Register;
 import org.govt.model.Products;
+import org.govt.model.CursorPage;
 import org.govt.model.Project;
+import org.govt.model.ProjectFilter;
 import org.govt.model.User_Supplier;
+import org.govt.service.ProjectQueryService;
 import org.govt.service.UserSupplierService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @CrossOrigin(origins = "*")
 @RestController
 @RequestMapping("/auth")
@@ -23,9 +29,12 @@ public class SupplierAuth {
 
     @Autowired
     private UserSupplierService userSupplierService;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     @Autowired
     private JwtUtil jwt;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    @Autowired
+    private ProjectQueryService projectQueryService;
 
     @PostMapping("/register/supplier")
     public Register register(@RequestBody User_Supplier userSupplier) {
@@ -33,21 +42,19 @@ public class SupplierAuth {
     }
 
     @PostMapping("/login/supplier")
-    public ResponseEntity<Login<User_Supplier>> login(@RequestBody User_Supplier userSupplier) {
-        User_Supplier supplier = userSupplierService.findByUsername(userSupplier.getUsername());
-
-        if (supplier != null && passwordEncoder.matches(userSupplier.getPassword(), supplier.getPassword())) {
-
-            String token = jwt.generateTokenWithUserId(supplier.getUsername(), supplier.getId());
-            return ResponseEntity.ok(
-                    new Login<>(
-                            "LoggedIn Successfully!!!",
-                            token,
-                            supplier));
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new Login<>("Invalid Credentials!!!", "", null));
-        }
+    public CompletableFuture<ResponseEntity<Login<User_Supplier>>> login(@RequestBody User_Supplier userSupplier, HttpServletRequest request) {
+        // Refused before the user lookup and the password check
+        loginRateLimiter.check(request, userSupplier.getUsername());
+        // The password is checked on the login pool; the servlet thread is released meanwhile
+        return userSupplierService.authenticateSupplier(userSupplier.getUsername(), userSupplier.getPassword())
+                .thenApply(supplier -> {
+                    if (supplier == null) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(new Login<User_Supplier>("Invalid Credentials!!!", "", null));
+                    }
+                    String token = jwt.generateTokenWithRole(supplier.getUsername(), supplier.getId(), UserRole.SUPPLIER);
+                    return ResponseEntity.ok(new Login<>("LoggedIn Successfully!!!", token, supplier));
+                });
     }
 
     @PostMapping("/{supplierId}/products")
@@ -84,4 +91,14 @@ public class SupplierAuth {
         return ResponseEntity.ok(userSupplierService.getProjectsBySupplier(id));
     }
 
+    @GetMapping("/supplier/getProject/{id}/page")
+    public ResponseEntity<CursorPage<Project>> getProjectPage(@PathVariable String id,
+            ProjectFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean summary) {
+        filter.setSupplierId(id);
+        return ResponseEntity.ok(projectQueryService.page(filter, cursor, limit, summary));
+    }
+
 }
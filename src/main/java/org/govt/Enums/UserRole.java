@@ -0,0 +1,13 @@
+package org.govt.Enums;
+
+public enum UserRole {
+SUPPLIER,
+CONTRACTOR,
+PROJECT_MANAGER,
+GOVT,
+SUPERVISOR;
+
+    public String authority() {
+        return "ROLE_" + name();
+    }
+}
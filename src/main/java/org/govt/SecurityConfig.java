@@ -1,7 +1,9 @@
 package org.govt;
 
 import org.govt.Authentication.JwtFilter;
+import org.govt.Authentication.TimedPasswordEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.web.SecurityFilterChain;
@@ -13,6 +15,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,8 +36,14 @@ public class SecurityConfig {
                                 "/auth/**",
                                 "/supplier/nearest",
                                 "/supervisors/nearest",
-                                "/ws-chat/**")
+                                "/ws-chat/**",
+                                // Actuator is served on management.server.port, bound to an internal address
+                                "/actuator/health",
+                                "/actuator/prometheus",
+                                // Error dispatches (e.g. a 429 from the login pool) keep their status
+                                "/error")
                         .permitAll()
+                        .requestMatchers("/admin/**", "/export/**", "/actuator/**").hasRole("GOVT")
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -63,8 +73,10 @@ public class SecurityConfig {
         return source;
     }
 
+    // Raising the cost rehashes each password at its owner's next login (LoginPipeline)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+            @Value("${auth.password.bcrypt-strength:10}") int strength) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry);
     }
 }
\ No newline at end of file
@@ -1,21 +1,110 @@
 package org.govt;
 
 import org.govt.Authentication.WebSocketAuthInterceptor;
+import org.govt.logging.StompCorrelationInterceptor;
+import org.govt.service.ChatFanoutRelay;
+import org.govt.service.WebSocketMetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @EnableWebSocketMessageBroker
 @Configuration
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    // Where Spring sends user messages whose user has no session on this node (relay and fanout modes)
+    public static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+
     @Autowired
     private WebSocketAuthInterceptor webSocketAuthInterceptor;
 
+    @Autowired
+    private StompCorrelationInterceptor stompCorrelationInterceptor;
+
+    // Only present in fanout mode
+    @Autowired(required = false)
+    private ChatFanoutRelay chatFanoutRelay;
+
+    // simple: in-memory broker, single node
+    // relay: external STOMP broker (RabbitMQ, ActiveMQ, ...) shared by all nodes
+    // fanout: in-memory broker per node, forwarded between nodes by ChatFanoutRelay
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${chat.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${chat.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${chat.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${chat.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${chat.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${chat.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${chat.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Autowired
+    private WebSocketMetricsService webSocketMetricsService;
+
+    // 0 = Spring's default of twice the number of processors
+    @Value("${chat.ws.inbound.core-pool-size:0}")
+    private int inboundCorePoolSize;
+
+    @Value("${chat.ws.inbound.max-pool-size:0}")
+    private int inboundMaxPoolSize;
+
+    @Value("${chat.ws.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    // Run inbound handlers (@MessageMapping, interceptors) on virtual threads; needs Java 21+
+    @Value("${chat.ws.inbound.virtual-threads:false}")
+    private boolean inboundVirtualThreads;
+
+    @Value("${chat.ws.outbound.core-pool-size:0}")
+    private int outboundCorePoolSize;
+
+    @Value("${chat.ws.outbound.max-pool-size:0}")
+    private int outboundMaxPoolSize;
+
+    @Value("${chat.ws.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${chat.ws.keep-alive-seconds:60}")
+    private int keepAliveSeconds;
+
+    // Largest inbound STOMP message
+    @Value("${chat.ws.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // A session whose unsent data exceeds this, or whose send takes longer than the time limit, is closed
+    @Value("${chat.ws.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${chat.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
     @Override
     public void registerStompEndpoints(@org.springframework.lang.NonNull StompEndpointRegistry registry) {
         registry.addEndpoint("/ws-chat")
@@ -25,13 +114,80 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(@org.springframework.lang.NonNull MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic", "/queue");
+        switch (brokerMode) {
+            case "simple":
+                registry.enableSimpleBroker("/topic", "/queue");
+                break;
+            case "relay":
+                if (!ClassUtils.isPresent("reactor.netty.tcp.TcpClient", getClass().getClassLoader())) {
+                    throw new IllegalStateException("chat.broker.mode=relay needs Reactor Netty; build with -Prelay-broker");
+                }
+                StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayClientLogin)
+                        .setClientPasscode(relayClientPasscode)
+                        .setSystemLogin(relaySystemLogin)
+                        .setSystemPasscode(relaySystemPasscode);
+                if (!relayVirtualHost.isEmpty()) {
+                    relay.setVirtualHost(relayVirtualHost);
+                }
+                // Each node learns the other nodes' users, and unresolved user messages go to all nodes
+                relay.setUserRegistryBroadcast("/topic/simp-user-registry");
+                relay.setUserDestinationBroadcast(USER_DESTINATION_BROADCAST);
+                break;
+            case "fanout":
+                registry.enableSimpleBroker("/topic", "/queue");
+                registry.configureBrokerChannel().interceptors(chatFanoutRelay);
+                break;
+            default:
+                throw new IllegalStateException("Unknown chat.broker.mode: " + brokerMode);
+        }
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
     }
 
     @Override
     public void configureClientInboundChannel(@org.springframework.lang.NonNull ChannelRegistration registration) {
-        registration.interceptors(webSocketAuthInterceptor);
+        registration.interceptors(webSocketAuthInterceptor, stompCorrelationInterceptor,
+                webSocketMetricsService.messageCounter("inbound"));
+
+        if (inboundVirtualThreads && Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-inbound-");
+            executor.setVirtualThreads(true);
+            registration.executor(executor);
+            return;
+        }
+        if (inboundVirtualThreads) {
+            log.warn("chat.ws.inbound.virtual-threads needs Java 21+, using a thread pool");
+        }
+        registration.taskExecutor()
+                .corePoolSize(poolSize(inboundCorePoolSize, 2))
+                .maxPoolSize(Math.max(poolSize(inboundMaxPoolSize, 4), poolSize(inboundCorePoolSize, 2)))
+                .queueCapacity(inboundQueueCapacity)
+                .keepAliveSeconds(keepAliveSeconds);
+    }
+
+    // Stays on a pool: messages to one session must go out in order
+    @Override
+    public void configureClientOutboundChannel(@org.springframework.lang.NonNull ChannelRegistration registration) {
+        registration.interceptors(webSocketMetricsService.messageCounter("outbound"));
+        registration.taskExecutor()
+                .corePoolSize(poolSize(outboundCorePoolSize, 2))
+                .maxPoolSize(Math.max(poolSize(outboundMaxPoolSize, 4), poolSize(outboundCorePoolSize, 2)))
+                .queueCapacity(outboundQueueCapacity)
+                .keepAliveSeconds(keepAliveSeconds);
+    }
+
+    @Override
+    public void configureWebSocketTransport(@org.springframework.lang.NonNull WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .addDecoratorFactory(webSocketMetricsService::decorate);
+    }
+
+    private static int poolSize(int configured, int perProcessor) {
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors() * perProcessor;
     }
 }
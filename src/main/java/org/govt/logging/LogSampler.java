@@ -0,0 +1,25 @@
+package org.govt.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one event in every {@code rate}, for log lines that would
+ * otherwise be written for every frame or message. A rate of 1 logs
+ * everything, 0 or less logs nothing.
+ */
+public class LogSampler {
+
+    private final long rate;
+    private final AtomicLong counter = new AtomicLong();
+
+    public LogSampler(long rate) {
+        this.rate = rate;
+    }
+
+    public boolean sample() {
+        if (rate <= 0) {
+            return false;
+        }
+        return rate == 1 || counter.getAndIncrement() % rate == 0;
+    }
+}
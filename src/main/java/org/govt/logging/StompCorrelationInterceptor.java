@@ -0,0 +1,41 @@
+package org.govt.logging;
+
+import org.slf4j.MDC;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets the logging MDC while an inbound STOMP frame is handled: the WebSocket
+ * session id, and as correlation id the frame's "correlation-id" header if the
+ * client sent one, else the session id.
+ */
+@Component
+public class StompCorrelationInterceptor implements ExecutorChannelInterceptor {
+
+    public static final String SESSION_MDC_KEY = "wsSession";
+
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel,
+            @NonNull MessageHandler handler) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        if (sessionId != null) {
+            MDC.put(SESSION_MDC_KEY, sessionId);
+            String correlationId = accessor.getFirstNativeHeader("correlation-id");
+            MDC.put(CorrelationIdFilter.MDC_KEY, correlationId != null ? correlationId : sessionId);
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+            @NonNull MessageHandler handler, Exception ex) {
+        MDC.remove(SESSION_MDC_KEY);
+        MDC.remove(CorrelationIdFilter.MDC_KEY);
+    }
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -13,6 +14,7 @@ import lombok.Data;
 public class Bid {
     @Id
    private String projectId;
+@Indexed
 private String contractorId;
 private String contractorName;
 
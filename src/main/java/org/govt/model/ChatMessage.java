@@ -4,9 +4,19 @@ import lombok.Data;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "messages")
+@CompoundIndexes({
+        // History of one conversation in (timestamp, _id) order; _id breaks timestamp ties for paging
+        @CompoundIndex(name = "conversation_timestamp_id", def = "{ 'conversationId': 1, 'timestamp': 1, '_id': 1 }"),
+        // Offline catch-up: everything a user received after a point in time
+        @CompoundIndex(name = "receiver_timestamp_id", def = "{ 'receiverId': 1, 'timestamp': 1, '_id': 1 }"),
+        // Bulk mark-as-read (sender, receiver, status) and the old two-branch findChatBetweenUsers
+        @CompoundIndex(name = "sender_receiver_timestamp_id", def = "{ 'senderId': 1, 'receiverId': 1, 'timestamp': 1, '_id': 1 }")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -22,4 +32,6 @@ public class ChatMessage {
 
     private long timestamp;
     private String status; // SENT, DELIVERED, READ
+
+    private String conversationId; // Conversation.idFor(senderId, receiverId)
 }
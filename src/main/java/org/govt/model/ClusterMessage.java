@@ -0,0 +1,21 @@
+package org.govt.model;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A broker message forwarded to the other nodes in chat.broker.mode=fanout
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClusterMessage {
+
+    private String nodeId;       // node that published it; receivers skip their own
+    private String destination;
+    private String contentType;
+    private Map<String, List<String>> nativeHeaders;
+    private byte[] payload;
+}
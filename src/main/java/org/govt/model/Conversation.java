@@ -0,0 +1,42 @@
+package org.govt.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Summary of a one-to-one chat, keyed by the deterministic conversation id of
+ * its two participants. Kept up to date as messages are sent and read.
+ */
+@Document(collection = "conversations")
+// Inbox: a user's conversations, most recent first
+@CompoundIndex(name = "participants_lastMessageAt_id", def = "{ 'participants': 1, 'lastMessageAt': -1, '_id': -1 }")
+@Data
+public class Conversation {
+
+    @Id
+    private String id;                  // idFor(participant1, participant2)
+    private List<String> participants;  // both user ids, sorted
+
+    private String lastMessageId;
+    private String lastSenderId;
+    private String lastMessageContent;
+    private long lastMessageAt;
+
+    private Map<String, Long> unreadCounts = new HashMap<>(); // userId -> messages not yet read by that user
+
+    // Same id whichever side sends, so both directions of a chat share one key
+    public static String idFor(String userA, String userB) {
+        return userA.compareTo(userB) <= 0 ? userA + ":" + userB : userB + ":" + userA;
+    }
+
+    public static List<String> participantsOf(String userA, String userB) {
+        return userA.compareTo(userB) <= 0 ? List.of(userA, userB) : List.of(userB, userA);
+    }
+}
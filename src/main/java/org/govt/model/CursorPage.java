@@ -0,0 +1,16 @@
+package org.govt.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One page of a keyset-paginated listing; pass nextCursor back to get the following page
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor; // null on the last page
+}
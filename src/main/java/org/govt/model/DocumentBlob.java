@@ -0,0 +1,24 @@
+package org.govt.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+@Document("document_blobs")
+@Data
+public class DocumentBlob {
+    @Id
+    private String id;          // SHA-256 (hex) of the content
+    @Indexed // looked up by the download cache to verify its copies
+    private String fileId;      // GridFS file holding the content
+    private long length;
+    private long refCount;      // DocumentUpload records pointing at this blob
+    private Date createdAt;
+
+    @Indexed // set when refCount drops to 0; the collector removes the blob after a grace period
+    private Date orphanedAt;
+}
@@ -1,16 +1,20 @@
 package org.govt.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDate;
 
 import lombok.Data;
 
 @Document("project_documents")
+@CompoundIndex(name = "entity", def = "{ 'entityType': 1, 'entityId': 1 }")
 @Data
 public class DocumentUpload {
     @Id
     private String id;
+    @Indexed
     private String projectId;
     private String entityType;     // e.g., "project", "user", "bid", "fund_transaction"
     private String entityId;       // ID of the associated record
@@ -25,5 +29,6 @@ public class DocumentUpload {
 
     private String uploadedAt;
     private String fileId; // GridFS file ID
+    private String sha256; // content hash, the DocumentBlob this record holds a reference on (null for older uploads)
 }
 
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -14,12 +15,15 @@ public class FundTransaction {
     @Id
     private String id;
   private String fromUserId;
+@Indexed
 private String toUserId;
 private String fromRole;
 private String toRole;   
+@Indexed
 private String projectId;
 private BigDecimal amount;
 private String purpose;
+@Indexed
 private String status; 
 private String timestamp;
 
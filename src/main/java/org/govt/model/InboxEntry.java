@@ -0,0 +1,36 @@
+package org.govt.model;
+
+import lombok.Data;
+
+// One row of a user's chat list, built from the Conversation summary
+@Data
+public class InboxEntry {
+    private String conversationId;
+    private String otherUserId;
+    private String lastMessageId;
+    private String lastSenderId;
+    private String lastMessageContent;
+    private long lastMessageAt;
+    private long unreadCount;          // messages to this user not yet read
+
+    public static InboxEntry of(Conversation conversation, String userId) {
+        InboxEntry entry = new InboxEntry();
+        entry.setConversationId(conversation.getId());
+        for (String participant : conversation.getParticipants()) {
+            if (!participant.equals(userId)) {
+                entry.setOtherUserId(participant);
+            }
+        }
+        if (entry.getOtherUserId() == null) {
+            entry.setOtherUserId(userId); // chat with oneself
+        }
+        entry.setLastMessageId(conversation.getLastMessageId());
+        entry.setLastSenderId(conversation.getLastSenderId());
+        entry.setLastMessageContent(conversation.getLastMessageContent());
+        entry.setLastMessageAt(conversation.getLastMessageAt());
+        Long unread = conversation.getUnreadCounts() != null ? conversation.getUnreadCounts().get(userId) : null;
+        // Briefly negative when a message is read before its batch has counted it
+        entry.setUnreadCount(unread != null ? Math.max(0, unread) : 0);
+        return entry;
+    }
+}
@@ -0,0 +1,17 @@
+package org.govt.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+// Index state of one collection, returned by /admin/indexes
+@Data
+public class IndexReport {
+    private String collection;
+    private List<String> declared = new ArrayList<>();   // from the model's @Indexed / @CompoundIndex
+    private List<String> existing = new ArrayList<>();   // present in Mongo
+    private List<String> missing = new ArrayList<>();    // declared but not present
+    private List<String> undeclared = new ArrayList<>(); // present but not declared by the model
+    private List<String> unused = new ArrayList<>();     // present with zero accesses since the server started
+}
@@ -0,0 +1,24 @@
+package org.govt.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Document("login_attempts")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginAttemptWindow {
+    @Id
+    private String id;          // "<ip|user>:<key>@<minute>"
+    private long count;
+
+    @Indexed(expireAfterSeconds = 0) // Mongo drops the window shortly after it closes
+    private Date expiresAt;
+}
@@ -6,11 +6,22 @@ import java.util.List;
 
 import org.govt.Enums.ProjectStatus;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
 @Data
 @Document("projects")
+// Each lookup field paired with _id so filtered listings can page by _id without an in-memory sort
+@CompoundIndexes({
+        @CompoundIndex(name = "pm_id", def = "{ 'projectManagerId': 1, '_id': -1 }"),
+        @CompoundIndex(name = "status_id", def = "{ 'status': 1, '_id': -1 }"),
+        @CompoundIndex(name = "department_id", def = "{ 'departmentId': 1, '_id': -1 }"),
+        @CompoundIndex(name = "supervisor_id", def = "{ 'assignedSupervisorId': 1, '_id': -1 }"),
+        @CompoundIndex(name = "contractor_id", def = "{ 'assignedContractorId': 1, '_id': -1 }"),
+        @CompoundIndex(name = "suppliers_id", def = "{ 'assignedSupplierIds': 1, '_id': -1 }")
+})
 public class Project {
    @Id
 private String id;
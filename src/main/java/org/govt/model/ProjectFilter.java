@@ -0,0 +1,16 @@
+package org.govt.model;
+
+import org.govt.Enums.ProjectStatus;
+
+import lombok.Data;
+
+// Optional filters of a project listing, bound from query parameters; null fields are not applied
+@Data
+public class ProjectFilter {
+    private ProjectStatus status;
+    private String departmentId;
+    private String projectManagerId;
+    private String supervisorId;
+    private String contractorId;
+    private String supplierId;
+}
@@ -0,0 +1,17 @@
+package org.govt.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Pushed to a message sender on /user/queue/read-receipts when the receiver reads the conversation
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadReceipt {
+
+    private String conversationId;
+    private String readerId;  // the receiver who read the messages
+    private long readAt;      // messages sent up to this time are now READ
+    private long count;       // how many messages changed to READ
+}
@@ -0,0 +1,24 @@
+package org.govt.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Document("revoked_tokens")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokedToken {
+    @Id
+    private String id;          // jti of the revoked token
+    private String username;
+
+    @Indexed(expireAfterSeconds = 0) // Mongo drops the entry once the token would have expired anyway
+    private Date expiresAt;
+}
@@ -1,6 +1,7 @@
 package org.govt.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -13,11 +14,13 @@ public class SupplierPaymentRequest {
     @Id
     private String id;
 
+    @Indexed
     private String projectId;
     private String supplierId;
     private String contractorId;
     private String itemDescription;
     private int amount;
+    @Indexed
     private String status; // PENDING, VERIFIED, APPROVED, REJECTED, PAID
     private String requestedBy; // contractorId
     private String verifiedBy;  // supervisorId
@@ -3,6 +3,7 @@ package org.govt.model;
 import java.time.LocalDate;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -12,8 +13,11 @@ import lombok.Data;
 public class SupplierRequest {
     @Id
     private String id;
+    @Indexed
     private String projectId;
+    @Indexed
     private String contractorId;
+    @Indexed
     private String supplierId;
     private String itemName;
     private String itemDescription;
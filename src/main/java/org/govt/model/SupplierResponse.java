@@ -3,6 +3,7 @@ package org.govt.model;
 import java.time.LocalDate;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -12,6 +13,7 @@ import lombok.Data;
 public class SupplierResponse {
     @Id
     private String id;
+    @Indexed
     private String supplierRequestId;
     private String responseNote;
     private String deliveryStatus; // PENDING, DELIVERED
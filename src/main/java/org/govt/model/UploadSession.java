@@ -0,0 +1,36 @@
+package org.govt.model;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+@Document("upload_sessions")
+@Data
+public class UploadSession {
+    @Id
+    private String id;             // also the _id of the GridFS file once committed
+    private String fileName;
+    private String contentType;
+    private long length;
+    private int partSize;          // bytes per part, a multiple of the GridFS chunk size
+    private int partCount;
+
+    // Copied to the DocumentUpload record on commit
+    private String entityType;
+    private String entityId;
+    private String purpose;
+    private String userId;
+    private String role;
+
+    private Map<String, String> parts = new HashMap<>(); // part number -> SHA-256 (hex) of the received part
+    private Date createdAt;
+
+    @Indexed // swept for abandoned uploads
+    private Date expiresAt;
+}
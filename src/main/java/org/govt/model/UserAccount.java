@@ -0,0 +1,73 @@
+package org.govt.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.govt.Enums.UserRole;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One entry per user across all roles. Authentication resolves a username here
+ * with a single indexed read; the full profile stays in the role's own
+ * collection and is referenced by profileId.
+ */
+@Document(collection = "users")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserAccount implements UserDetails {
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String username;
+
+    private UserRole role;
+    private String profileId;   // _id in the role's collection
+    private long createdAt = System.currentTimeMillis();
+
+    public UserAccount(String username, UserRole role, String profileId) {
+        this.username = username;
+        this.role = role;
+        this.profileId = profileId;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return role == null ? List.of() : List.of(new SimpleGrantedAuthority(role.authority()));
+    }
+
+    // Credentials are only checked at login against the role's collection
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
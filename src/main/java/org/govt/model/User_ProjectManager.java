@@ -3,6 +3,7 @@ package org.govt.model;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,6 +21,7 @@ public class User_ProjectManager implements UserDetails {
 
     private String name;
     private String password;
+    @Indexed
     private String username;
     private String DOB;
     private long phone;
@@ -3,6 +3,9 @@ package org.govt.model;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,6 +15,14 @@ import java.util.Collection;
 import java.util.List;
 
 @Document(collection = "supervisors")
+@CompoundIndexes({
+        // findByCriteria / nearest lookups, most specific level first
+        @CompoundIndex(name = "address_street_zip", def = "{ 'address.street': 1, 'address.zipCode': 1 }"),
+        @CompoundIndex(name = "address_zip", def = "{ 'address.zipCode': 1 }"),
+        @CompoundIndex(name = "address_city", def = "{ 'address.city': 1 }"),
+        @CompoundIndex(name = "address_state", def = "{ 'address.state': 1 }"),
+        @CompoundIndex(name = "address_country", def = "{ 'address.country': 1 }")
+})
 @Getter
 @Setter
 public class User_Supervisor implements UserDetails {
@@ -20,7 +31,9 @@ public class User_Supervisor implements UserDetails {
 
     private String name;
     private String password;
+    @Indexed
     private String username;
+    @Indexed
     private String zone;
     private String DOB;
     private long phone;
@@ -3,6 +3,9 @@ package org.govt.model;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.access.method.P;
 import org.springframework.security.core.GrantedAuthority;
@@ -13,6 +16,14 @@ import java.util.Collection;
 import java.util.List;
 
 @Document(collection = "supplier")
+@CompoundIndexes({
+        // findByCriteria / nearest lookups, most specific level first
+        @CompoundIndex(name = "address_street_zip", def = "{ 'address.street': 1, 'address.zipCode': 1 }"),
+        @CompoundIndex(name = "address_zip", def = "{ 'address.zipCode': 1 }"),
+        @CompoundIndex(name = "address_city", def = "{ 'address.city': 1 }"),
+        @CompoundIndex(name = "address_state", def = "{ 'address.state': 1 }"),
+        @CompoundIndex(name = "address_country", def = "{ 'address.country': 1 }")
+})
 @Getter
 @Setter
 public class User_Supplier implements UserDetails {
@@ -21,6 +32,7 @@ public class User_Supplier implements UserDetails {
 
     private String name;
     private String password;
+    @Indexed
     private String username;
     private String DOB;
     private long phone;
@@ -31,6 +43,7 @@ public class User_Supplier implements UserDetails {
     private List<Products> catalogProducts;
     private ArrayList<String> connected;
 
+    @Indexed
     private boolean approved;
     private long createdAt = System.currentTimeMillis();
 
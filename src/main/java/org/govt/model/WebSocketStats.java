@@ -0,0 +1,25 @@
+package org.govt.model;
+
+import lombok.Data;
+
+// WebSocket transport and channel state, returned by /admin/websocket/stats
+@Data
+public class WebSocketStats {
+    private long openSessions;
+    private long slowConsumerDisconnects; // sessions closed for exceeding the send time or buffer limit
+    private long transportErrors;
+
+    private ExecutorStats inbound;        // clientInboundChannel: messages from clients to handlers
+    private ExecutorStats outbound;       // clientOutboundChannel: messages from the broker to clients
+
+    private String springStats;           // WebSocketMessageBrokerStats summary
+
+    @Data
+    public static class ExecutorStats {
+        private String type;              // "pool" or "virtual"
+        private int poolSize;
+        private int activeCount;
+        private int queueSize;            // tasks waiting for a thread
+        private int queueRemaining;       // room left before tasks are rejected
+    }
+}
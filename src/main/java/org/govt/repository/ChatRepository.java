@@ -14,6 +14,8 @@ public interface ChatRepository extends MongoRepository<ChatMessage, String> {
 )
 List<ChatMessage> findChatBetweenUsers(String user1, String user2);
 
+    // Single-key range scan on conversation_timestamp_id
+    List<ChatMessage> findByConversationIdOrderByTimestampAsc(String conversationId);
 
     @Query("{ senderId: ?0, receiverId: ?1, status: 'SENT' }")
     List<ChatMessage> findUnreadMessages(String senderId, String receiverId);
@@ -0,0 +1,7 @@
+package org.govt.repository;
+
+import org.govt.model.Conversation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ConversationRepository extends MongoRepository<Conversation, String> {
+}
@@ -0,0 +1,7 @@
+package org.govt.repository;
+
+import org.govt.model.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+}
@@ -0,0 +1,10 @@
+package org.govt.repository;
+
+import org.govt.model.UserAccount;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserAccountRepository extends MongoRepository<UserAccount, String> {
+    UserAccount findByUsername(String username);
+}
@@ -0,0 +1,125 @@
+package org.govt.service;
+
+import java.util.UUID;
+
+import org.govt.WebSocketConfig;
+import org.govt.model.ClusterMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Cross-node delivery for chat.broker.mode=fanout. Each node keeps its simple
+ * broker; this interceptor on the broker channel forwards to the other nodes
+ * (through a {@link ClusterTransport}):
+ * <ul>
+ * <li>user messages whose user has no session on this node, which Spring sends
+ * to {@link WebSocketConfig#USER_DESTINATION_BROADCAST}; the node holding the
+ * user's session resolves and delivers them, the others find no session and
+ * drop them;</li>
+ * <li>messages to /topic destinations, so every node's subscribers get them.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "chat.broker.mode", havingValue = "fanout")
+public class ChatFanoutRelay implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatFanoutRelay.class);
+
+    // Marks messages that arrived from another node so they are not forwarded again
+    private static final String ORIGIN_HEADER = "fanoutOrigin";
+
+    private final String nodeId;
+
+    @Autowired
+    private ClusterTransport transport;
+
+    // Looked up once started: both are built from WebSocketConfig, which needs this interceptor first
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private MessageChannel brokerChannel;
+    private UserDestinationMessageHandler userDestinationHandler;
+
+    public ChatFanoutRelay(@Value("${chat.fanout.node-id:}") String nodeId) {
+        this.nodeId = nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        brokerChannel = applicationContext.getBean("brokerChannel", MessageChannel.class);
+        userDestinationHandler = applicationContext.getBean("userDestinationMessageHandler", UserDestinationMessageHandler.class);
+        // Only the relay registration can set this; with the simple broker it is set here
+        userDestinationHandler.setBroadcastDestination(WebSocketConfig.USER_DESTINATION_BROADCAST);
+        transport.subscribe(this::receive);
+        log.info("Chat fan-out started on node {}", nodeId);
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || destination == null
+                || accessor.getHeader(ORIGIN_HEADER) != null || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        if (destination.equals(WebSocketConfig.USER_DESTINATION_BROADCAST)) {
+            publish(accessor, destination, payload);
+            return null; // nobody subscribes to it locally
+        }
+        if (destination.startsWith("/topic/")) {
+            publish(accessor, destination, payload);
+        }
+        return message;
+    }
+
+    private void publish(SimpMessageHeaderAccessor accessor, String destination, byte[] payload) {
+        MimeType contentType = accessor.getContentType();
+        transport.publish(new ClusterMessage(nodeId, destination,
+                contentType != null ? contentType.toString() : null,
+                accessor.toNativeHeaderMap(), payload));
+    }
+
+    private void receive(ClusterMessage clusterMessage) {
+        // Presence updates share the transport but are not broker messages
+        if (nodeId.equals(clusterMessage.getNodeId())
+                || PresenceRegistry.CLUSTER_DESTINATION.equals(clusterMessage.getDestination())) {
+            return;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(clusterMessage.getDestination());
+        // Spring ignores broadcasts without a session id as its own
+        accessor.setSessionId("fanout-" + clusterMessage.getNodeId());
+        if (clusterMessage.getContentType() != null) {
+            accessor.setContentType(MimeType.valueOf(clusterMessage.getContentType()));
+        }
+        if (clusterMessage.getNativeHeaders() != null) {
+            clusterMessage.getNativeHeaders().forEach((name, values) -> values.forEach(v -> accessor.addNativeHeader(name, v)));
+        }
+        accessor.setHeader(ORIGIN_HEADER, clusterMessage.getNodeId());
+        Message<byte[]> message = MessageBuilder.createMessage(clusterMessage.getPayload(), accessor.getMessageHeaders());
+
+        if (WebSocketConfig.USER_DESTINATION_BROADCAST.equals(clusterMessage.getDestination())) {
+            userDestinationHandler.handleMessage(message);
+        } else {
+            brokerChannel.send(message);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package org.govt.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import org.bson.Document;
+import org.govt.model.ChatMessage;
+import org.govt.model.Conversation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stores chat messages and keeps their conversation summaries up to date.
+ *
+ * In {@code sync} mode every message is saved before it is delivered, as before.
+ * In {@code write-behind} mode (the default) the message gets its id in the
+ * application, goes into a bounded queue and is delivered straight away; a
+ * single flusher thread writes queued messages with one unordered insertMany
+ * per batch plus one bulk upsert of the affected conversations. A full queue
+ * blocks the sender until the flusher catches up, and the queue is drained on
+ * shutdown. A read that must see its own conversation's messages writes only
+ * those out of the queue, so requests never drain the whole node's backlog.
+ */
+@Service
+public class ChatPersistenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatPersistenceService.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.persistence.mode:write-behind}")
+    private String mode;
+
+    @Value("${chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${chat.write-behind.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    // Write concern of the batch inserts, e.g. ACKNOWLEDGED, JOURNALED, MAJORITY
+    @Value("${chat.write-behind.write-concern:ACKNOWLEDGED}")
+    private String writeConcernName;
+
+    @Value("${chat.write-behind.max-retries:3}")
+    private int maxRetries;
+
+    private BlockingQueue<ChatMessage> queue;
+    private WriteConcern writeConcern;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // Held while a batch is written so flush() callers and the flusher thread never interleave
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    void start() {
+        if (!isWriteBehind()) {
+            return;
+        }
+        writeConcern = WriteConcern.valueOf(writeConcernName);
+        if (writeConcern == null) {
+            throw new IllegalStateException("Unknown chat.write-behind.write-concern: " + writeConcernName);
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        Gauge.builder("chat.write-behind.pending", this, ChatPersistenceService::pending)
+                .description("Chat messages queued but not yet written")
+                .register(meterRegistry);
+        log.info("Chat write-behind enabled (batch {}, every {} ms, write concern {})",
+                batchSize, flushIntervalMs, writeConcernName);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!isWriteBehind()) {
+            return;
+        }
+        // Not interrupted: the flusher finishes its current batch and exits
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        flush();
+        log.info("Chat write-behind drained");
+    }
+
+    public boolean isWriteBehind() {
+        return "write-behind".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Persists a new message that already has its id, timestamp and conversation
+     * id. In write-behind mode this only queues it.
+     */
+    public void persist(ChatMessage message) {
+        if (!isWriteBehind()) {
+            mongoTemplate.insert(message);
+            updateConversations(List.of(message));
+            return;
+        }
+        try {
+            queue.put(message);
+            LockSupport.unpark(flusher);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Could not queue it; do not lose the message
+            mongoTemplate.insert(message);
+            updateConversations(List.of(message));
+        }
+    }
+
+    // Writes everything queued so far; used before queries that must see every sent message
+    public void flush() {
+        if (!isWriteBehind()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<ChatMessage> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the queued messages that match, and waits for a batch already being
+     * written; used before a query that must see those messages. The rest of the
+     * queue is left to the flusher.
+     */
+    public void flush(Predicate<ChatMessage> affected) {
+        if (!isWriteBehind()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<ChatMessage> matching = new ArrayList<>();
+            // One pass in queue order, so each conversation's messages keep their order
+            queue.removeIf(message -> affected.test(message) && matching.add(message));
+            for (int from = 0; from < matching.size(); from += batchSize) {
+                write(matching.subList(from, Math.min(from + batchSize, matching.size())));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int pending() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    private void flushLoop() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                // Taken from the queue only under the lock, so flush(affected) never misses a message in hand
+                flushLock.lock();
+                try {
+                    queue.drainTo(batch, batchSize);
+                    if (!batch.isEmpty()) {
+                        write(batch);
+                    }
+                } finally {
+                    flushLock.unlock();
+                }
+                if (batch.isEmpty()) {
+                    // persist() unparks this thread, so a new message does not wait out the interval
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                }
+                batch.clear();
+            } catch (RuntimeException e) {
+                batch.clear();
+                log.error("Error in chat write-behind flusher", e);
+            }
+        }
+    }
+
+    private void write(List<ChatMessage> batch) {
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (ChatMessage message : batch) {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(message, document);
+            documents.add(document);
+        }
+
+        String collection = mongoTemplate.getCollectionName(ChatMessage.class);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                mongoTemplate.getCollection(collection)
+                        .withWriteConcern(writeConcern)
+                        .insertMany(documents, new InsertManyOptions().ordered(false));
+                break;
+            } catch (MongoBulkWriteException e) {
+                // Unordered insert with client-side ids: duplicates were written by an earlier attempt
+                if (e.getWriteErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY)
+                        && e.getWriteConcernError() == null) {
+                    break;
+                }
+                if (attempt > maxRetries) {
+                    dropped(batch, e);
+                    return;
+                }
+                documents = retryable(documents, e.getWriteErrors());
+            } catch (RuntimeException e) {
+                if (attempt > maxRetries) {
+                    dropped(batch, e);
+                    return;
+                }
+            }
+            sleepBeforeRetry(attempt);
+        }
+        updateConversations(batch);
+    }
+
+    // Keeps the documents that failed for a reason other than already being stored
+    private static List<Document> retryable(List<Document> documents, List<BulkWriteError> errors) {
+        if (errors.isEmpty()) {
+            return documents; // write concern error only: retry all, duplicates are ignored next time
+        }
+        List<Document> retry = new ArrayList<>();
+        for (BulkWriteError error : errors) {
+            if (error.getCode() != DUPLICATE_KEY) {
+                retry.add(documents.get(error.getIndex()));
+            }
+        }
+        return retry;
+    }
+
+    private static void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(100L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void dropped(List<ChatMessage> batch, Exception e) {
+        log.error("Giving up persisting {} chat messages", batch.size(), e);
+        for (ChatMessage message : batch) {
+            log.error("Lost chat message {} in {}", message.getId(), message.getConversationId());
+        }
+    }
+
+    /**
+     * Two writes per conversation in the batch: an upsert that creates the
+     * conversation with this summary or only counts the new messages as unread
+     * for their receivers, then an update that moves the summary to the newest
+     * message only if it is newer than the stored one, so a late batch never
+     * replaces a more recent summary.
+     */
+    private void updateConversations(List<ChatMessage> messages) {
+        Map<String, ChatMessage> latest = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> unread = new LinkedHashMap<>();
+        for (ChatMessage message : messages) {
+            latest.merge(message.getConversationId(), message,
+                    (a, b) -> b.getTimestamp() >= a.getTimestamp() ? b : a);
+            unread.computeIfAbsent(message.getConversationId(), c -> new LinkedHashMap<>())
+                    .merge(message.getReceiverId(), 1L, Long::sum);
+        }
+
+        List<ConversationWrite> writes = new ArrayList<>(latest.size() * 2);
+        for (ChatMessage message : latest.values()) {
+            Update counts = new Update()
+                    .setOnInsert("participants", Conversation.participantsOf(message.getSenderId(), message.getReceiverId()))
+                    .setOnInsert("lastMessageId", message.getId())
+                    .setOnInsert("lastSenderId", message.getSenderId())
+                    .setOnInsert("lastMessageContent", message.getContent())
+                    .setOnInsert("lastMessageAt", message.getTimestamp());
+            unread.get(message.getConversationId())
+                    .forEach((receiverId, count) -> counts.inc("unreadCounts." + receiverId, count));
+            writes.add(new ConversationWrite(
+                    Query.query(Criteria.where("_id").is(message.getConversationId())), counts, true));
+
+            Update summary = new Update()
+                    .set("lastMessageId", message.getId())
+                    .set("lastSenderId", message.getSenderId())
+                    .set("lastMessageContent", message.getContent())
+                    .set("lastMessageAt", message.getTimestamp());
+            writes.add(new ConversationWrite(
+                    Query.query(Criteria.where("_id").is(message.getConversationId())
+                            .and("lastMessageAt").lt(message.getTimestamp())),
+                    summary, false));
+        }
+        applyConversationWrites(writes);
+    }
+
+    private record ConversationWrite(Query query, Update update, boolean upsert) {
+    }
+
+    // Ordered, so after a write error exactly the writes before the failed one have been applied
+    private void applyConversationWrites(List<ConversationWrite> writes) {
+        int applied = 0;
+        for (int attempt = 1; ; attempt++) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class);
+            for (ConversationWrite write : writes.subList(applied, writes.size())) {
+                if (write.upsert()) {
+                    bulk.upsert(write.query(), write.update());
+                } else {
+                    bulk.updateOne(write.query(), write.update());
+                }
+            }
+            try {
+                bulk.execute();
+                return;
+            } catch (BulkOperationException e) {
+                if (e.getErrors().isEmpty()) {
+                    // Write concern error only: every write was applied, and retrying would count messages twice
+                    log.warn("Conversation summaries written without the requested write concern: {}", e.getMessage());
+                    return;
+                }
+                applied += e.getErrors().get(0).getIndex();
+            } catch (RuntimeException e) {
+                // Not known how far it got; counting a batch twice is better than losing it
+                log.warn("Conversation summary update failed, retrying: {}", e.getMessage());
+            }
+            if (attempt > maxRetries) {
+                log.error("Giving up updating conversation summaries; {} write(s) not applied", writes.size() - applied);
+                return;
+            }
+            sleepBeforeRetry(attempt);
+        }
+    }
+}
@@ -1,50 +1,90 @@
 package org.govt.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import org.bson.types.ObjectId;
+
 import org.govt.model.ChatMessage;
+import org.govt.model.Conversation;
+import org.govt.model.CursorPage;
+import org.govt.model.InboxEntry;
+import org.govt.model.ReadReceipt;
 import org.govt.repository.ChatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.mongodb.client.result.UpdateResult;
 
 @Service
 public class ChatService {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatService.class);
+
     @Autowired
     private ChatRepository chatRepository;
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChatPersistenceService chatPersistence;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
+    @Autowired
+    private DeliveryAckBatcher deliveryAckBatcher;
+
+    public static final int DEFAULT_HISTORY_PAGE = 50;
+    public static final int MAX_HISTORY_PAGE = 200;
+    public static final int DEFAULT_INBOX_PAGE = 30;
+
     public void handleMessage(ChatMessage message) {
 
         try {
             // Validate message
             if (message.getSenderId() == null || message.getSenderId().isEmpty()) {
-                System.err.println("ERROR: Message senderId is null or empty");
+                log.warn("Chat message rejected: senderId is null or empty");
                 return;
             }
 
             if (message.getReceiverId() == null || message.getReceiverId().isEmpty()) {
-                System.err.println("ERROR: Message receiverId is null or empty");
+                log.warn("Chat message rejected: receiverId is null or empty");
                 return;
             }
 
             if (message.getContent() == null || message.getContent().isEmpty()) {
-                System.err.println("ERROR: Message content is null or empty");
+                log.warn("Chat message rejected: content is null or empty");
                 return;
             }
 
+            message.setId(new ObjectId().toHexString());
             message.setTimestamp(System.currentTimeMillis());
-            message.setStatus("SENT");
+            // An online receiver gets it over the socket below, so it is stored as DELIVERED in the same write
+            message.setStatus(presenceRegistry.isOnline(message.getReceiverId()) ? "DELIVERED" : "SENT");
+            message.setConversationId(Conversation.idFor(message.getSenderId(), message.getReceiverId()));
 
-            // Persist first (important)
-            ChatMessage saved = chatRepository.save(message);
+            // Saved right away in sync mode, queued for the next batch in write-behind mode
+            chatPersistence.persist(message);
+            ChatMessage saved = message;
 
-            System.out.println("✅ Message saved to database: " + saved.getId() +
-                    " from " + saved.getSenderId() +
-                    " to " + saved.getReceiverId());
+            log.debug("Message {} {} from {} to {}", saved.getId(),
+                    chatPersistence.isWriteBehind() ? "queued" : "saved", saved.getSenderId(), saved.getReceiverId());
 
             // Send to receiver only
             messagingTemplate.convertAndSendToUser(
@@ -52,32 +92,209 @@ public class ChatService {
                     "/queue/messages",
                     saved);
 
-            System.out.println("✅ Message sent via WebSocket to user: " + message.getReceiverId());
-
         } catch (Exception e) {
-            System.err.println("❌ ERROR handling message: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error handling chat message from {} to {}", message.getSenderId(), message.getReceiverId(), e);
         }
     }
 
     public void markMessagesAsRead(String senderId, String receiverId) {
 
         try {
-            List<ChatMessage> unreadMessages = chatRepository.findUnreadMessages(senderId, receiverId);
-
-            System.out.println("Marking " + unreadMessages.size() + " messages as READ");
+            // This conversation's queued messages must be stored before they can be marked
+            String conversationId = Conversation.idFor(senderId, receiverId);
+            chatPersistence.flush(queued -> conversationId.equals(queued.getConversationId()));
+            long readAt = System.currentTimeMillis();
 
-            for (ChatMessage message : unreadMessages) {
-                message.setStatus("READ");
+            // One server-side update; nothing is loaded into memory
+            UpdateResult result = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("senderId").is(senderId)
+                            .and("receiverId").is(receiverId)
+                            .and("status").in("SENT", "DELIVERED")),
+                    Update.update("status", "READ"),
+                    ChatMessage.class);
+            // Only what this update marked: a message arriving meanwhile stays unread
+            if (result.getModifiedCount() > 0) {
+                decrementUnread(senderId, receiverId, result.getModifiedCount());
             }
 
-            chatRepository.saveAll(unreadMessages);
+            log.debug("Marked {} messages from {} to {} as READ", result.getModifiedCount(), senderId, receiverId);
 
-            System.out.println("✅ Messages marked as READ successfully");
+            if (result.getModifiedCount() > 0) {
+                messagingTemplate.convertAndSendToUser(
+                        senderId,
+                        "/queue/read-receipts",
+                        new ReadReceipt(Conversation.idFor(senderId, receiverId), receiverId, readAt,
+                                result.getModifiedCount()));
+            }
 
         } catch (Exception e) {
-            System.err.println("❌ ERROR marking messages as read: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error marking messages from {} to {} as read", senderId, receiverId, e);
+        }
+    }
+
+    private void decrementUnread(String senderId, String receiverId, long read) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(Conversation.idFor(senderId, receiverId))),
+                new Update().inc("unreadCounts." + receiverId, -read),
+                Conversation.class);
+    }
+
+    /**
+     * Messages received since a point in time, oldest first, for a client
+     * catching up after being offline. The cursor is "timestamp_id" of the last
+     * message the client has (or just a timestamp); without one the sync starts
+     * from the user's last disconnect. Returned messages still marked SENT are
+     * acknowledged as DELIVERED in the next batch.
+     */
+    public CursorPage<ChatMessage> getPendingSince(String receiverId, String since, Integer limit) {
+        int size = limit == null ? DEFAULT_HISTORY_PAGE : Math.max(1, Math.min(limit, MAX_HISTORY_PAGE));
+        if (since == null || since.isEmpty()) {
+            Long lastSeen = presenceRegistry.lastSeen(receiverId);
+            since = String.valueOf(lastSeen != null ? lastSeen : 0L);
+        }
+
+        chatPersistence.flush(queued -> receiverId.equals(queued.getReceiverId()));
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("receiverId").is(receiverId), newerThan(since)))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"))
+                .limit(size + 1);
+        List<ChatMessage> messages = mongoTemplate.find(query, ChatMessage.class);
+
+        String nextCursor = null;
+        if (messages.size() > size) {
+            messages = messages.subList(0, size);
+            ChatMessage newest = messages.get(size - 1);
+            nextCursor = newest.getTimestamp() + "_" + newest.getId();
+        }
+
+        List<String> undelivered = new ArrayList<>();
+        for (ChatMessage message : messages) {
+            if ("SENT".equals(message.getStatus())) {
+                undelivered.add(message.getId());
+            }
+        }
+        deliveryAckBatcher.acknowledge(receiverId, undelivered);
+        return new CursorPage<>(messages, nextCursor);
+    }
+
+    public void acknowledgeDelivery(String receiverId, List<String> messageIds) {
+        deliveryAckBatcher.acknowledge(receiverId, messageIds);
+    }
+
+    /**
+     * The user's conversations, most recent first, with the last message and
+     * the user's unread count. One indexed read of the conversation summaries;
+     * the counters are kept up to date on send and on mark-as-read. The cursor
+     * is "lastMessageAt_conversationId" of the last entry of the previous page.
+     */
+    public CursorPage<InboxEntry> getInbox(String userId, String before, Integer limit) {
+        int size = limit == null ? DEFAULT_INBOX_PAGE : Math.max(1, Math.min(limit, MAX_HISTORY_PAGE));
+
+        // Summaries of queued messages are written with their batch; only this user's are needed
+        chatPersistence.flush(queued -> userId.equals(queued.getSenderId()) || userId.equals(queued.getReceiverId()));
+
+        Criteria criteria = Criteria.where("participants").is(userId);
+        if (before != null && !before.isEmpty()) {
+            int split = before.indexOf('_');
+            if (split < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            try {
+                long lastMessageAt = Long.parseLong(before.substring(0, split));
+                String conversationId = before.substring(split + 1);
+                criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                        Criteria.where("lastMessageAt").lt(lastMessageAt),
+                        Criteria.where("lastMessageAt").is(lastMessageAt).and("_id").lt(conversationId)));
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "lastMessageAt", "_id"))
+                .limit(size + 1);
+        List<Conversation> conversations = mongoTemplate.find(query, Conversation.class);
+
+        String nextCursor = null;
+        if (conversations.size() > size) {
+            conversations = conversations.subList(0, size);
+            Conversation last = conversations.get(size - 1);
+            nextCursor = last.getLastMessageAt() + "_" + last.getId();
+        }
+        List<InboxEntry> entries = new ArrayList<>(conversations.size());
+        for (Conversation conversation : conversations) {
+            entries.add(InboxEntry.of(conversation, userId));
+        }
+        return new CursorPage<>(entries, nextCursor);
+    }
+
+    public List<ChatMessage> getHistory(String user1, String user2) {
+        return chatRepository.findByConversationIdOrderByTimestampAsc(Conversation.idFor(user1, user2));
+    }
+
+    /**
+     * The latest messages between two users that are older than the cursor,
+     * returned oldest first. The cursor is "timestamp_id" of the oldest message
+     * of the previous page (or just a timestamp); null starts from the newest
+     * message. Each page is an index range scan, independent of history length.
+     */
+    public CursorPage<ChatMessage> getHistoryPage(String user1, String user2, String before, Integer limit) {
+        int size = limit == null ? DEFAULT_HISTORY_PAGE : Math.max(1, Math.min(limit, MAX_HISTORY_PAGE));
+
+        Criteria conversation = Criteria.where("conversationId").is(Conversation.idFor(user1, user2));
+
+        Criteria criteria = conversation;
+        if (before != null && !before.isEmpty()) {
+            criteria = new Criteria().andOperator(conversation, olderThan(before));
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "_id"))
+                .limit(size + 1);
+        List<ChatMessage> messages = mongoTemplate.find(query, ChatMessage.class);
+
+        String nextCursor = null;
+        if (messages.size() > size) {
+            messages = messages.subList(0, size);
+            ChatMessage oldest = messages.get(size - 1);
+            nextCursor = oldest.getTimestamp() + "_" + oldest.getId();
+        }
+        messages = new ArrayList<>(messages);
+        Collections.reverse(messages);
+        return new CursorPage<>(messages, nextCursor);
+    }
+
+    private Criteria olderThan(String cursor) {
+        return beyond(cursor, false);
+    }
+
+    private Criteria newerThan(String cursor) {
+        return beyond(cursor, true);
+    }
+
+    // Messages strictly after (newer) or before the "timestamp_id" cursor in (timestamp, _id) order
+    private Criteria beyond(String cursor, boolean newer) {
+        try {
+            int split = cursor.indexOf('_');
+            if (split < 0) {
+                long timestamp = Long.parseLong(cursor);
+                return newer ? Criteria.where("timestamp").gt(timestamp) : Criteria.where("timestamp").lt(timestamp);
+            }
+            long timestamp = Long.parseLong(cursor.substring(0, split));
+            String id = cursor.substring(split + 1);
+            if (!ObjectId.isValid(id)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            ObjectId objectId = new ObjectId(id);
+            return newer
+                    ? new Criteria().orOperator(
+                            Criteria.where("timestamp").gt(timestamp),
+                            Criteria.where("timestamp").is(timestamp).and("_id").gt(objectId))
+                    : new Criteria().orOperator(
+                            Criteria.where("timestamp").lt(timestamp),
+                            Criteria.where("timestamp").is(timestamp).and("_id").lt(objectId));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
         }
     }
 }
@@ -0,0 +1,368 @@
+package org.govt.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.govt.model.DocumentBlob;
+import org.govt.model.DocumentUpload;
+import org.govt.model.UploadSession;
+import org.govt.repository.DocumentUploadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Resumable uploads straight into GridFS. A client opens a session, sends the
+ * file as numbered parts in any order and in parallel, and commits. Each part
+ * is streamed into the chunks collection one GridFS chunk at a time, so memory
+ * per request is one chunk whatever the file size, and nothing is spooled to
+ * disk. The session's id becomes the GridFS file id, and the file document is
+ * only written on commit, so a half-uploaded file is never visible.
+ *
+ * Every part carries the SHA-256 of its bytes. A part whose checksum does not
+ * match is not recorded and can be sent again; a part sent again with the
+ * checksum already recorded is acknowledged without reading it. Chunks are
+ * upserted by (files_id, n), so a retried part overwrites its own chunks; the
+ * part stays unrecorded until the new bytes verify. A part still streaming when
+ * the upload is committed or aborted stops, and its chunks are removed.
+ *
+ * Sessions not committed within documents.upload.session-ttl are removed, with
+ * their chunks, when later sessions are opened. On commit the content is
+ * registered with DocumentBlobService; if it was already stored, the new copy
+ * is dropped and the record points at the existing file.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    // GridFS's default chunk size, which GridFsTemplate.store also uses
+    static final int GRIDFS_CHUNK_SIZE = 255 * 1024;
+    private static final int MAX_CHUNKS_PER_PART = 64;
+    private static final int SWEEP_BATCH = 20;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DocumentUploadRepository docRepo;
+
+    @Autowired
+    private DocumentBlobService blobService;
+
+    @Value("${spring.data.mongodb.gridfs.bucket:fs}")
+    private String bucket;
+
+    @Value("${documents.upload.part-size:5MB}")
+    private DataSize defaultPartSize;
+
+    @Value("${documents.upload.max-size:2GB}")
+    private DataSize maxSize;
+
+    @Value("${documents.upload.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    @PostConstruct
+    void ensureChunkIndex() {
+        try {
+            // The index GridFS itself relies on; also what makes part retries overwrite in place
+            chunks().createIndex(Indexes.ascending("files_id", "n"), new IndexOptions().unique(true));
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the GridFS chunk index: {}", e.getMessage());
+        }
+    }
+
+    public UploadSession open(UploadSession request) {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fileName is required");
+        }
+        if (request.getLength() <= 0 || request.getLength() > maxSize.toBytes()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "length must be between 1 and " + maxSize.toBytes() + " bytes");
+        }
+        sweepExpired();
+
+        // Whole GridFS chunks per part, so a part maps onto a fixed run of chunk numbers
+        long requested = request.getPartSize() > 0 ? request.getPartSize() : defaultPartSize.toBytes();
+        int chunksPerPart = (int) Math.min(MAX_CHUNKS_PER_PART, Math.max(1, requested / GRIDFS_CHUNK_SIZE));
+
+        UploadSession session = new UploadSession();
+        session.setId(new ObjectId().toHexString());
+        session.setFileName(request.getFileName());
+        session.setContentType(request.getContentType());
+        session.setLength(request.getLength());
+        session.setPartSize(chunksPerPart * GRIDFS_CHUNK_SIZE);
+        session.setPartCount((int) ((request.getLength() + session.getPartSize() - 1) / session.getPartSize()));
+        session.setEntityType(request.getEntityType());
+        session.setEntityId(request.getEntityId());
+        session.setPurpose(request.getPurpose());
+        session.setUserId(request.getUserId());
+        session.setRole(request.getRole());
+        session.setCreatedAt(new Date());
+        session.setExpiresAt(new Date(System.currentTimeMillis() + sessionTtl.toMillis()));
+        return mongoTemplate.insert(session);
+    }
+
+    public UploadSession status(String uploadId) {
+        UploadSession session = ObjectId.isValid(uploadId) ? mongoTemplate.findById(uploadId, UploadSession.class) : null;
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such upload");
+        }
+        return session;
+    }
+
+    /**
+     * Streams part n of the upload into GridFS chunks. sha256 is the hex
+     * SHA-256 of the part's bytes; the part is recorded only if it matches.
+     */
+    public UploadSession putPart(String uploadId, int n, String sha256, InputStream body) throws IOException {
+        UploadSession session = status(uploadId);
+        if (n < 0 || n >= session.getPartCount()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Part must be between 0 and " + (session.getPartCount() - 1));
+        }
+        String key = String.valueOf(n);
+        if (sha256 == null || sha256.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The part's SHA-256 is required");
+        }
+        if (sha256.equalsIgnoreCase(session.getParts().get(key))) {
+            // A retry of a part that already arrived
+            return session;
+        }
+
+        long expected = n < session.getPartCount() - 1
+                ? session.getPartSize()
+                : session.getLength() - (long) n * session.getPartSize();
+        ObjectId fileId = new ObjectId(uploadId);
+        int chunksPerPart = session.getPartSize() / GRIDFS_CHUNK_SIZE;
+        int firstChunk = n * chunksPerPart;
+
+        // Unrecorded before its chunks change, so a failed re-send cannot leave the old SHA-256 standing
+        // and a commit meanwhile finds the part missing. No match: the upload is gone and nothing is written
+        Query byId = Query.query(Criteria.where("_id").is(uploadId));
+        if (mongoTemplate.updateFirst(byId, new Update().unset("parts." + key), UploadSession.class)
+                .getMatchedCount() == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such upload");
+        }
+        session.getParts().remove(key);
+        // Still open, and this part not recorded by a parallel send of it
+        Query writable = Query.query(Criteria.where("_id").is(uploadId).and("parts." + key).exists(false));
+
+        boolean recorded = false;
+        try {
+            MessageDigest digest = DocumentBlobService.sha256();
+            byte[] buffer = new byte[GRIDFS_CHUNK_SIZE];
+            long received = 0;
+            for (int chunk = firstChunk; ; chunk++) {
+                int read = body.readNBytes(buffer, 0, buffer.length);
+                if (read == 0) {
+                    break;
+                }
+                received += read;
+                if (received > expected) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Part " + n + " must be " + expected + " bytes");
+                }
+                digest.update(buffer, 0, read);
+                // One _id lookup per chunk keeps a part that races commit or abort from writing on
+                if (!mongoTemplate.exists(writable, UploadSession.class)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "The upload was committed or aborted, or part " + n + " was sent again, meanwhile");
+                }
+                // The driver encodes the document before returning, so the buffer can be reused
+                writeChunk(fileId, chunk, read == buffer.length ? buffer : Arrays.copyOf(buffer, read));
+            }
+            if (received != expected) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Part " + n + " must be " + expected + " bytes, got " + received);
+            }
+            String actual = HexFormat.of().formatHex(digest.digest());
+            if (!actual.equalsIgnoreCase(sha256)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Part " + n + " does not match its SHA-256");
+            }
+
+            // One field per part, so parallel parts do not overwrite each other's entries
+            recorded = mongoTemplate.updateFirst(byId,
+                    new Update().set("parts." + key, actual)
+                            .set("expiresAt", new Date(System.currentTimeMillis() + sessionTtl.toMillis())),
+                    UploadSession.class).getMatchedCount() > 0;
+            if (!recorded) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The upload was committed or aborted meanwhile");
+            }
+            session.getParts().put(key, actual);
+            return session;
+        } finally {
+            if (!recorded) {
+                dropStrayChunks(uploadId, firstChunk, chunksPerPart);
+            }
+        }
+    }
+
+    /**
+     * Writes the GridFS file document, which makes the file downloadable, and
+     * the document record. Fails with 409 naming the missing parts if any.
+     */
+    public DocumentUpload commit(String uploadId) {
+        UploadSession current = status(uploadId);
+        requireAllParts(current);
+        // Claimed by removing it, and only while every part is recorded: a part being re-sent
+        // is unrecorded first, and its upload stays open for it
+        Criteria complete = Criteria.where("_id").is(uploadId);
+        for (int n = 0; n < current.getPartCount(); n++) {
+            complete.and("parts." + n).exists(true);
+        }
+        UploadSession session = mongoTemplate.findAndRemove(Query.query(complete), UploadSession.class);
+        if (session == null) {
+            // Committed or aborted meanwhile, or a part is being sent again
+            requireAllParts(status(uploadId));
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "The upload changed meanwhile, retry the commit");
+        }
+
+        Document metadata = new Document();
+        if (session.getContentType() != null) {
+            metadata.append("_contentType", session.getContentType());
+        }
+        try {
+            mongoTemplate.getCollection(bucket + ".files").insertOne(new Document("_id", new ObjectId(uploadId))
+                    .append("length", session.getLength())
+                    .append("chunkSize", GRIDFS_CHUNK_SIZE)
+                    .append("uploadDate", new Date())
+                    .append("filename", session.getFileName())
+                    .append("metadata", metadata));
+        } catch (MongoWriteException | DuplicateKeyException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "The upload was already committed");
+        }
+
+        // Parts arrive out of order, so the whole-content hash is taken once, here
+        DocumentBlob blob = blobService.acquire(contentHash(new ObjectId(uploadId)), new ObjectId(uploadId),
+                session.getLength());
+
+        DocumentUpload doc = new DocumentUpload();
+        doc.setFileId(blob.getFileId());
+        doc.setSha256(blob.getId());
+        doc.setFileName(session.getFileName());
+        doc.setFileType(session.getContentType());
+        doc.setFileSize(session.getLength());
+        doc.setUploadedBy(session.getUserId());
+        doc.setRole(session.getRole());
+        doc.setUploadedAt(LocalDate.now().toString());
+        doc.setEntityType(session.getEntityType());
+        doc.setEntityId(session.getEntityId());
+        doc.setPurpose(session.getPurpose());
+        return docRepo.save(doc);
+    }
+
+    public void abort(String uploadId) {
+        // Claiming the session by removing it keeps a concurrent commit or abort out
+        claim(uploadId);
+        deleteChunks(uploadId);
+    }
+
+    private UploadSession claim(String uploadId) {
+        UploadSession session = ObjectId.isValid(uploadId)
+                ? mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(uploadId)), UploadSession.class)
+                : null;
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such upload");
+        }
+        return session;
+    }
+
+    private static void requireAllParts(UploadSession session) {
+        List<Integer> missing = new ArrayList<>();
+        for (int n = 0; n < session.getPartCount(); n++) {
+            if (!session.getParts().containsKey(String.valueOf(n))) {
+                missing.add(n);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Parts not uploaded yet: " + missing);
+        }
+    }
+
+    private void sweepExpired() {
+        Query expired = Query.query(Criteria.where("expiresAt").lt(new Date())).limit(SWEEP_BATCH);
+        expired.fields().include("_id");
+        for (UploadSession stale : mongoTemplate.find(expired, UploadSession.class)) {
+            // Removed only if still expired: a part may have arrived since the find
+            UploadSession removed = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(stale.getId())
+                    .and("expiresAt").lt(new Date())), UploadSession.class);
+            if (removed != null) {
+                deleteChunks(removed.getId());
+                log.info("Removed abandoned upload {} ({})", removed.getId(), removed.getFileName());
+            }
+        }
+    }
+
+    private String contentHash(ObjectId fileId) {
+        MessageDigest digest = DocumentBlobService.sha256();
+        try (MongoCursor<Document> chunks = chunks().find(Filters.eq("files_id", fileId))
+                .projection(Projections.include("data"))
+                .sort(Sorts.ascending("n"))
+                .batchSize(4)
+                .iterator()) {
+            while (chunks.hasNext()) {
+                digest.update(chunks.next().get("data", Binary.class).getData());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void writeChunk(ObjectId fileId, int n, byte[] data) {
+        chunks().replaceOne(Filters.and(Filters.eq("files_id", fileId), Filters.eq("n", n)),
+                new Document("files_id", fileId).append("n", n).append("data", new Binary(data)),
+                new ReplaceOptions().upsert(true));
+    }
+
+    // Chunks of a part that was not recorded, once the upload is gone and was not committed as a file
+    private void dropStrayChunks(String uploadId, int firstChunk, int count) {
+        ObjectId fileId = new ObjectId(uploadId);
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(uploadId)), UploadSession.class)
+                || mongoTemplate.getCollection(bucket + ".files").countDocuments(Filters.eq("_id", fileId)) > 0) {
+            return;
+        }
+        chunks().deleteMany(Filters.and(Filters.eq("files_id", fileId),
+                Filters.gte("n", firstChunk), Filters.lt("n", firstChunk + count)));
+    }
+
+    private void deleteChunks(String uploadId) {
+        chunks().deleteMany(Filters.eq("files_id", new ObjectId(uploadId)));
+    }
+
+    private MongoCollection<Document> chunks() {
+        return mongoTemplate.getCollection(bucket + ".chunks");
+    }
+}
@@ -0,0 +1,16 @@
+package org.govt.service;
+
+import java.util.function.Consumer;
+
+import org.govt.model.ClusterMessage;
+
+/**
+ * Carries broker messages between the nodes of a chat cluster. Every published
+ * message is delivered to the listeners of every node, including the publisher.
+ */
+public interface ClusterTransport {
+
+    void publish(ClusterMessage message);
+
+    void subscribe(Consumer<ClusterMessage> listener);
+}
@@ -0,0 +1,150 @@
+package org.govt.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.govt.model.ChatMessage;
+import org.govt.model.Conversation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stamps the conversation id on messages saved before it existed and builds a
+ * {@link Conversation} summary for each conversation it touched. Only messages
+ * without a conversation id are read, so after the first run this is a single
+ * empty index lookup.
+ *
+ * Runs once the beans are created and before the web server starts, so history
+ * queries by conversation id never see unstamped messages on this node. Other
+ * nodes may already be serving chat, so summary writes can be repeated safely:
+ * unread counts only rise to the recounted total, and the last message only
+ * moves forward.
+ */
+@Component
+public class ConversationBackfill implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationBackfill.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${chat.conversation-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        Set<String> touched = stampConversationIds();
+        List<String> ids = new ArrayList<>(touched);
+        int created = 0;
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            created += buildSummaries(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())));
+        }
+
+        if (!touched.isEmpty()) {
+            log.info("Conversation backfill finished, {} conversations updated, {} summaries created",
+                    touched.size(), created);
+        }
+    }
+
+    private Set<String> stampConversationIds() {
+        Query query = new Query(Criteria.where("conversationId").exists(false)
+                .and("senderId").ne(null)
+                .and("receiverId").ne(null));
+        query.fields().include("senderId", "receiverId");
+        String collection = mongoTemplate.getCollectionName(ChatMessage.class);
+
+        Set<String> touched = new LinkedHashSet<>();
+        int pending = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatMessage.class);
+
+        try (Stream<Document> messages = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document message : (Iterable<Document>) messages::iterator) {
+                String conversationId = Conversation.idFor(message.getString("senderId"), message.getString("receiverId"));
+                touched.add(conversationId);
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(message.get("_id"))),
+                        Update.update("conversationId", conversationId));
+                if (++pending == BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatMessage.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        return touched;
+    }
+
+    private int buildSummaries(List<String> conversationIds) {
+        String collection = mongoTemplate.getCollectionName(ChatMessage.class);
+        Document inBatch = new Document("conversationId", new Document("$in", conversationIds));
+
+        // Unread messages per (conversation, receiver)
+        Map<String, Map<String, Long>> unread = new HashMap<>();
+        for (Document group : mongoTemplate.getCollection(collection).aggregate(List.of(
+                new Document("$match", new Document(inBatch).append("status", new Document("$ne", "READ"))),
+                new Document("$group", new Document("_id",
+                        new Document("c", "$conversationId").append("r", "$receiverId"))
+                        .append("n", new Document("$sum", 1)))))) {
+            Document key = group.get("_id", Document.class);
+            unread.computeIfAbsent(key.getString("c"), c -> new HashMap<>())
+                    .put(key.getString("r"), group.get("n", Number.class).longValue());
+        }
+
+        int pending = 0;
+        // Ordered: each conversation's upsert comes before the update that moves its summary
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class);
+        for (Document last : mongoTemplate.getCollection(collection).aggregate(List.of(
+                new Document("$match", inBatch),
+                new Document("$sort", new Document("timestamp", 1).append("_id", 1)),
+                new Document("$group", new Document("_id", "$conversationId")
+                        .append("last", new Document("$last", "$$ROOT")))))) {
+            Document message = last.get("last", Document.class);
+            String conversationId = last.getString("_id");
+            long lastMessageAt = message.get("timestamp", Number.class).longValue();
+            Update counts = new Update()
+                    .setOnInsert("participants", Conversation.participantsOf(
+                            message.getString("senderId"), message.getString("receiverId")))
+                    .setOnInsert("lastMessageId", String.valueOf(message.get("_id")))
+                    .setOnInsert("lastSenderId", message.getString("senderId"))
+                    .setOnInsert("lastMessageContent", message.getString("content"))
+                    .setOnInsert("lastMessageAt", lastMessageAt);
+            // The recount includes live messages, so it replaces a lower count instead of adding to it
+            unread.getOrDefault(conversationId, Map.of())
+                    .forEach((receiverId, count) -> counts.max("unreadCounts." + receiverId, count));
+            bulk.upsert(Query.query(Criteria.where("_id").is(conversationId)), counts);
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(conversationId).and("lastMessageAt").lt(lastMessageAt)),
+                    new Update()
+                            .set("lastMessageId", String.valueOf(message.get("_id")))
+                            .set("lastSenderId", message.getString("senderId"))
+                            .set("lastMessageContent", message.getString("content"))
+                            .set("lastMessageAt", lastMessageAt));
+            pending++;
+        }
+        return pending > 0 ? bulk.execute().getUpserts().size() : 0;
+    }
+}
@@ -0,0 +1,130 @@
+package org.govt.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.govt.model.ChatMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Collects ids of messages that reached their receiver and marks them
+ * DELIVERED with one updateMulti per batch. Only SENT messages change, so a
+ * late acknowledgement never moves a READ message back.
+ */
+@Service
+public class DeliveryAckBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryAckBatcher.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChatPersistenceService chatPersistence;
+
+    @Value("${chat.delivery-ack.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${chat.delivery-ack.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private final ConcurrentLinkedQueue<Ack> pending = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chat-delivery-ack");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private static class Ack {
+        final String receiverId;
+        final String messageId;
+
+        Ack(String receiverId, String messageId) {
+            this.receiverId = receiverId;
+            this.messageId = messageId;
+        }
+    }
+
+    // Only messages addressed to receiverId are affected, whatever ids a client sends
+    public void acknowledge(String receiverId, List<String> messageIds) {
+        for (String messageId : messageIds) {
+            if (messageId == null) {
+                continue;
+            }
+            pending.add(new Ack(receiverId, messageId));
+        }
+    }
+
+    public void flush() {
+        List<Ack> batch = new ArrayList<>(batchSize);
+        Ack ack;
+        while ((ack = pending.poll()) != null) {
+            batch.add(ack);
+            if (batch.size() == batchSize) {
+                markDelivered(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            markDelivered(batch);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Error marking messages as DELIVERED", e);
+        }
+    }
+
+    private void markDelivered(List<Ack> batch) {
+        Map<String, List<String>> byReceiver = new HashMap<>();
+        Set<String> acknowledged = new HashSet<>();
+        for (Ack ack : batch) {
+            byReceiver.computeIfAbsent(ack.receiverId, r -> new ArrayList<>()).add(ack.messageId);
+            acknowledged.add(ack.messageId);
+        }
+
+        // Acknowledged messages may still be waiting in the write-behind queue
+        chatPersistence.flush(queued -> acknowledged.contains(queued.getId()));
+        byReceiver.forEach((receiverId, messageIds) -> mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(messageIds)
+                        .and("receiverId").is(receiverId)
+                        .and("status").is("SENT")),
+                Update.update("status", "DELIVERED"),
+                ChatMessage.class));
+    }
+}
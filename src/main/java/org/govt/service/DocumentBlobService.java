@@ -0,0 +1,191 @@
+package org.govt.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.govt.model.DocumentBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stores document content once per SHA-256. A blob document maps the hash to
+ * the GridFS file holding the content and counts the DocumentUpload records
+ * that reference it. Uploading content that is already stored adds a
+ * reference and drops the new copy; a client that knows the hash up front can
+ * link to the blob without uploading at all.
+ *
+ * Reference changes are single atomic updates on the blob document. When the
+ * count reaches zero the blob is marked orphaned, and a background collector
+ * deletes it and its GridFS file once documents.blobs.gc-grace has passed
+ * without a new reference.
+ */
+@Service
+public class DocumentBlobService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentBlobService.class);
+    private static final int GC_BATCH = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private GridFsTemplate gridFsTemplate;
+
+    @Autowired
+    private DocumentDiskCache diskCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${documents.blobs.gc-interval:10m}")
+    private Duration gcInterval;
+
+    @Value("${documents.blobs.gc-grace:1h}")
+    private Duration gcGrace;
+
+    private ScheduledExecutorService collector;
+    private Counter deduplicated;
+    private Counter collected;
+
+    @PostConstruct
+    void start() {
+        deduplicated = Counter.builder("documents.blobs.deduplicated")
+                .description("Uploads whose content was already stored")
+                .register(meterRegistry);
+        collected = Counter.builder("documents.blobs.collected")
+                .description("Unreferenced blobs deleted by the collector")
+                .register(meterRegistry);
+        collector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "documents-blob-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        collector.scheduleWithFixedDelay(this::collectSafely, gcInterval.toMillis(), gcInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        collector.shutdownNow();
+    }
+
+    /** Hex SHA-256 of content, read to the end. */
+    public String hash(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream in = new DigestInputStream(content, digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Takes a reference on the blob for hash, registering fileId as its content
+     * if the hash is new. If the content was already stored, fileId is a
+     * duplicate and is deleted; the returned blob names the file to use.
+     */
+    public DocumentBlob acquire(String hash, ObjectId fileId, long length) {
+        DocumentBlob blob = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(hash)),
+                new Update().inc("refCount", 1).unset("orphanedAt")
+                        .setOnInsert("fileId", fileId.toHexString())
+                        .setOnInsert("length", length)
+                        .setOnInsert("createdAt", new Date()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                DocumentBlob.class);
+        if (!fileId.toHexString().equals(blob.getFileId())) {
+            gridFsTemplate.delete(Query.query(Criteria.where("_id").is(fileId)));
+            diskCache.invalidate(fileId.toHexString());
+            deduplicated.increment();
+            log.debug("Content {} already stored as {}, dropped copy {}", hash, blob.getFileId(), fileId);
+        }
+        return blob;
+    }
+
+    /** Takes a reference on an existing blob; null if the content is not stored. */
+    public DocumentBlob link(String hash) {
+        DocumentBlob blob = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(hash.toLowerCase(Locale.ROOT))),
+                new Update().inc("refCount", 1).unset("orphanedAt"),
+                FindAndModifyOptions.options().returnNew(true),
+                DocumentBlob.class);
+        if (blob != null) {
+            deduplicated.increment();
+        }
+        return blob;
+    }
+
+    public void release(String hash) {
+        DocumentBlob blob = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(hash)),
+                new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                DocumentBlob.class);
+        if (blob != null && blob.getRefCount() <= 0) {
+            // Only if no reference was taken meanwhile
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(hash).and("refCount").lte(0)),
+                    Update.update("orphanedAt", new Date()), DocumentBlob.class);
+        }
+    }
+
+    /** Deletes blobs that have been unreferenced for the grace period; returns how many. */
+    public int collect() {
+        Date cutoff = new Date(System.currentTimeMillis() - gcGrace.toMillis());
+        Query orphaned = Query.query(Criteria.where("orphanedAt").lt(cutoff).and("refCount").lte(0)).limit(GC_BATCH);
+        orphaned.fields().include("_id");
+        int removed = 0;
+        for (DocumentBlob candidate : mongoTemplate.find(orphaned, DocumentBlob.class)) {
+            // Re-checked atomically: a reference taken since the find keeps the blob
+            DocumentBlob blob = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(candidate.getId())
+                    .and("orphanedAt").lt(cutoff).and("refCount").lte(0)), DocumentBlob.class);
+            if (blob != null) {
+                gridFsTemplate.delete(Query.query(Criteria.where("_id").is(new ObjectId(blob.getFileId()))));
+                diskCache.invalidate(blob.getFileId());
+                removed++;
+            }
+        }
+        collected.increment(removed);
+        return removed;
+    }
+
+    private void collectSafely() {
+        try {
+            int removed = collect();
+            if (removed > 0) {
+                log.info("Collected {} unreferenced document blob(s)", removed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Document blob collection failed: {}", e.getMessage());
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package org.govt.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.govt.model.DocumentBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mongodb.client.model.Filters;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Local disk copies of recently downloaded GridFS files, so repeat downloads
+ * are served from the file system instead of streaming chunks from Mongo.
+ * GridFS files never change, so an entry only goes stale when its file is
+ * deleted. A delete on this node calls invalidate(); one on another node is
+ * caught by the hit itself, which looks up the file's _id in the files
+ * collection before serving the copy. The cache is bounded by total bytes,
+ * and the least valuable entries are evicted and their files deleted.
+ *
+ * A copy is written while the file is first sent to a client and only
+ * becomes an entry if it is complete: the length must match, and when the
+ * content is a registered blob its SHA-256 must match too. A hit whose file
+ * has changed size on disk is dropped and goes back to GridFS.
+ *
+ * The file of a removed entry is deleted only after documents.cache.delete-delay,
+ * because a hit hands the path to Tomcat, which opens it after the request
+ * returns. Once opened, deleting the path no longer affects the send.
+ *
+ * The index is kept in memory, so the cache's own copies (*.bin, and *.part
+ * left by an interrupted fill) are deleted from the directory at startup.
+ * Anything else in it is left alone.
+ */
+@Component
+public class DocumentDiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentDiskCache.class);
+
+    /** A complete, verified copy of a GridFS file and what is needed to send it. */
+    public record CachedDocument(Path path, String fileName, String contentType, long length, long uploadDate) {
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.data.mongodb.gridfs.bucket:fs}")
+    private String bucket;
+
+    @Value("${documents.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${documents.cache.dir:${java.io.tmpdir}/govt-document-cache}")
+    private String directory;
+
+    @Value("${documents.cache.max-size:1GB}")
+    private DataSize maxSize;
+
+    // Larger files are always streamed from GridFS
+    @Value("${documents.cache.max-file-size:64MB}")
+    private DataSize maxFileSize;
+
+    // Long enough for a sendfile hit to open the file it was given
+    @Value("${documents.cache.delete-delay:30s}")
+    private Duration deleteDelay;
+
+    private Path dir;
+    private ScheduledExecutorService deleter;
+    private Cache<String, CachedDocument> entries;
+    // Files being copied, so concurrent misses for one file write one copy
+    private final Set<String> filling = ConcurrentHashMap.newKeySet();
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        dir = Path.of(directory);
+        Files.createDirectories(dir);
+        try (Stream<Path> leftovers = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) leftovers::iterator) {
+                String name = file.getFileName().toString();
+                if ((name.endsWith(".bin") || name.endsWith(".part")) && Files.isRegularFile(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        deleter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "documents-cache-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Caffeine's size-bounded eviction (W-TinyLFU), weighed in bytes, rather than strict LRU:
+        // a burst of one-off downloads does not flush the hot thumbnails
+        entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String fileId, CachedDocument doc) -> (int) Math.min(Integer.MAX_VALUE, doc.length()))
+                .removalListener((String fileId, CachedDocument doc, RemovalCause cause) -> {
+                    if (doc != null) {
+                        deleter.schedule(() -> deleteQuietly(doc.path()), deleteDelay.toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                })
+                .build();
+        hits = Counter.builder("documents.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("documents.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("documents.cache.bytes", entries,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Document cache in {} (max {}, files up to {})", dir, maxSize, maxFileSize);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (deleter != null) {
+            // Files still waiting are removed with the directory at the next startup
+            deleter.shutdownNow();
+        }
+    }
+
+    /** The cached copy of fileId, or null on a miss. */
+    public CachedDocument get(String fileId) {
+        if (!enabled) {
+            return null;
+        }
+        CachedDocument doc = entries.getIfPresent(fileId);
+        if (doc != null && !intact(doc)) {
+            log.warn("Cached copy of {} is damaged, dropping it", fileId);
+            entries.invalidate(fileId);
+            doc = null;
+        }
+        // Deleted on another node, whose invalidate() does not reach this cache
+        if (doc != null && !fileExists(fileId)) {
+            entries.invalidate(fileId);
+            doc = null;
+        }
+        (doc != null ? hits : misses).increment();
+        return doc;
+    }
+
+    /** Drops the cached copy of a GridFS file that has been deleted. */
+    public void invalidate(String fileId) {
+        if (enabled && fileId != null) {
+            entries.invalidate(fileId.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Starts a copy of fileId, or returns null when it should not be cached
+     * (disabled, too large, or already being copied by another request).
+     */
+    public Fill fill(String fileId, String fileName, String contentType, long length, long uploadDate) {
+        if (!enabled || length == 0 || length > maxFileSize.toBytes() || !filling.add(fileId)) {
+            return null;
+        }
+        try {
+            Path temp = Files.createTempFile(dir, fileId + "-", ".part");
+            return new Fill(fileId, temp, new CachedDocument(temp, fileName, contentType, length, uploadDate));
+        } catch (IOException e) {
+            filling.remove(fileId);
+            log.warn("Could not start a cached copy of {}: {}", fileId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * A copy in progress. Bytes are appended in file order; the copy becomes a
+     * cache entry on complete() if it verifies, and is deleted otherwise.
+     * Failures only abandon the copy, never the download.
+     */
+    public final class Fill {
+
+        private final String fileId;
+        private final Path temp;
+        private final CachedDocument doc;
+        private final MessageDigest digest = DocumentBlobService.sha256();
+        private FileChannel channel;
+        private long written;
+
+        private Fill(String fileId, Path temp, CachedDocument doc) throws IOException {
+            this.fileId = fileId;
+            this.temp = temp;
+            this.doc = doc;
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+        }
+
+        public void write(byte[] data, int offset, int length) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                digest.update(data, offset, length);
+                written += length;
+            } catch (IOException e) {
+                log.warn("Cached copy of {} failed: {}", fileId, e.getMessage());
+                abort();
+            }
+        }
+
+        public void complete() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+                channel = null;
+                String sha256 = HexFormat.of().formatHex(digest.digest());
+                if (written != doc.length() || !matchesBlob(sha256)) {
+                    log.warn("Cached copy of {} does not verify, discarding it", fileId);
+                    deleteQuietly(temp);
+                    return;
+                }
+                Path path = dir.resolve(temp.getFileName().toString().replace(".part", ".bin"));
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+                entries.put(fileId, new CachedDocument(path, doc.fileName(), doc.contentType(), doc.length(),
+                        doc.uploadDate()));
+                // Checked after the put: a delete before this check is seen here, a later one invalidates the entry
+                if (!fileExists(fileId)) {
+                    entries.invalidate(fileId);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not cache {}: {}", fileId, e.getMessage());
+                deleteQuietly(temp);
+            } finally {
+                filling.remove(fileId);
+            }
+        }
+
+        public void abort() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                // Deleted below either way
+            }
+            channel = null;
+            deleteQuietly(temp);
+            filling.remove(fileId);
+        }
+
+        private boolean matchesBlob(String sha256) {
+            // Files stored before blobs existed have no hash to check against
+            DocumentBlob blob = mongoTemplate.findOne(Query.query(Criteria.where("fileId").is(fileId)), DocumentBlob.class);
+            return blob == null || blob.getId().equals(sha256);
+        }
+    }
+
+    private boolean fileExists(String fileId) {
+        return mongoTemplate.getCollection(bucket + ".files")
+                .countDocuments(Filters.eq("_id", new ObjectId(fileId))) > 0;
+    }
+
+    private static boolean intact(CachedDocument doc) {
+        try {
+            return Files.size(doc.path()) == doc.length();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cached file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package org.govt.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sends GridFS files over HTTP. The file document is read once; the body is
+ * read straight from the chunks collection, only the chunks that overlap the
+ * requested range, and each chunk's bytes go to the response without an
+ * intermediate buffer.
+ *
+ * GridFS files never change after upload, so the file id is a strong ETag and
+ * the upload date is Last-Modified. A conditional GET that still matches gets
+ * 304 with no body, and a single byte range (with If-Range) gets 206, so an
+ * interrupted download resumes where it stopped.
+ *
+ * Files in DocumentDiskCache are sent from disk after one _id lookup, by
+ * Tomcat's sendfile where the connector supports it and FileChannel.transferTo
+ * otherwise. A whole-file download of an uncached file fills the cache.
+ */
+@Service
+public class DocumentDownloadService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentDownloadService.class);
+
+    // Request attributes of Tomcat's sendfile support (see its DefaultServlet)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private GridFsTemplate gridFsTemplate;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DocumentDiskCache cache;
+
+    @Value("${spring.data.mongodb.gridfs.bucket:fs}")
+    private String bucket;
+
+    // Chunks fetched per round trip; GridFS chunks are 255 KB by default
+    @Value("${documents.download.chunk-batch-size:4}")
+    private int chunkBatchSize;
+
+    public void send(String fileId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // One spelling per file, for the cache key and the ETag
+        fileId = fileId.toLowerCase(Locale.ROOT);
+        DocumentDiskCache.CachedDocument cached = cache.get(fileId);
+        if (cached != null) {
+            long[] span = prepare(fileId, cached.fileName(), cached.contentType(), cached.length(), cached.uploadDate(),
+                    request, response);
+            if (span != null) {
+                sendFile(cached.path(), span[0], span[1], request, response);
+            }
+            return;
+        }
+
+        GridFSFile file = find(fileId);
+        long length = file.getLength();
+        long[] span = prepare(fileId, file.getFilename(), contentType(file), length, file.getUploadDate().getTime(),
+                request, response);
+        if (span == null) {
+            return;
+        }
+        // Only whole-file responses fill the cache; ranges come from GridFS until then
+        DocumentDiskCache.Fill fill = span[0] == 0 && span[1] == length - 1
+                ? cache.fill(fileId, file.getFilename(), contentType(file), length, file.getUploadDate().getTime())
+                : null;
+        writeChunks(file, span[0], span[1], response.getOutputStream(), fill);
+    }
+
+    /**
+     * Writes the status and headers. Returns the first and last byte to send,
+     * or null when there is no body (304, 416, HEAD or an empty file).
+     */
+    private long[] prepare(String fileId, String fileName, String contentType, long length, long lastModified,
+                           HttpServletRequest request, HttpServletResponse response) {
+        String etag = "\"" + fileId + "\"";
+
+        // Sets ETag and Last-Modified, and 304 when the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Cached copies are revalidated, which the 304 above makes cheap
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = range(request, etag, lastModified);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            // HttpRange lets a first byte past the end through
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return null;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentLengthLong(end - start + 1);
+
+        if (length == 0 || "HEAD".equals(request.getMethod())) {
+            return null;
+        }
+        return new long[] { start, end };
+    }
+
+    private void sendFile(Path path, long start, long end, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file with sendfile(2) once the request returns, without copying it through the JVM
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = start; position <= end; ) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+
+    private GridFSFile find(String fileId) {
+        if (!ObjectId.isValid(fileId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such file");
+        }
+        GridFSFile file = gridFsTemplate.findOne(Query.query(Criteria.where("_id").is(new ObjectId(fileId))));
+        if (file == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such file");
+        }
+        return file;
+    }
+
+    // The one range to send, or null for the whole file
+    private HttpRange range(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRangeMatches(ifRange, etag, lastModified)) {
+            // The client's partial copy is of another version: send it all
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            // Several ranges would need a multipart body; the whole file is a valid answer
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            // HTTP dates have whole seconds
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond()
+                    == lastModified / 1000;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
+    // fill, when not null, receives the same bytes and is completed only if all of them were sent
+    private void writeChunks(GridFSFile file, long start, long end, OutputStream out, DocumentDiskCache.Fill fill)
+            throws IOException {
+        int chunkSize = file.getChunkSize();
+        int first = (int) (start / chunkSize);
+        int last = (int) (end / chunkSize);
+
+        try (MongoCursor<Document> chunks = mongoTemplate.getCollection(bucket + ".chunks")
+                .find(Filters.and(Filters.eq("files_id", file.getId()), Filters.gte("n", first), Filters.lte("n", last)))
+                .projection(Projections.include("n", "data"))
+                .sort(Sorts.ascending("n"))
+                .batchSize(chunkBatchSize)
+                .iterator()) {
+            int expected = first;
+            while (chunks.hasNext()) {
+                Document chunk = chunks.next();
+                int n = chunk.getInteger("n");
+                if (n != expected) {
+                    throw new IllegalStateException("GridFS file " + file.getObjectId() + " is missing chunk " + expected);
+                }
+                byte[] data = chunk.get("data", Binary.class).getData();
+                long chunkStart = (long) n * chunkSize;
+                int from = (int) Math.max(0, start - chunkStart);
+                int to = (int) Math.min(data.length, end - chunkStart + 1);
+                out.write(data, from, to - from);
+                if (fill != null) {
+                    fill.write(data, from, to - from);
+                }
+                expected++;
+            }
+            if (expected != last + 1) {
+                throw new IllegalStateException("GridFS file " + file.getObjectId() + " is missing chunk " + expected);
+            }
+            if (fill != null) {
+                fill.complete();
+                fill = null;
+            }
+        } catch (IOException e) {
+            // Usually the client went away mid-download; it can resume with a range
+            log.debug("Download of {} interrupted: {}", file.getObjectId(), e.getMessage());
+            throw e;
+        } finally {
+            if (fill != null) {
+                fill.abort();
+            }
+        }
+    }
+
+    private static String contentType(GridFSFile file) {
+        String type = file.getMetadata() != null ? file.getMetadata().getString("_contentType") : null;
+        return type != null ? type : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+}
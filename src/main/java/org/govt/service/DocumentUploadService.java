@@ -1,21 +1,19 @@
 package org.govt.service;
 
-import java.io.InputStream;
 import java.time.LocalDate;
 
-// import javax.management.Query;
-import org.springframework.data.mongodb.core.query.Query;
-
 import org.bson.types.ObjectId;
+import org.govt.model.DocumentBlob;
 import org.govt.model.DocumentUpload;
 import org.govt.repository.DocumentUploadRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-
-import com.mongodb.client.gridfs.model.GridFSFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.util.List;
@@ -24,11 +22,20 @@ import java.util.List;
 public class DocumentUploadService {
     @Autowired private GridFsTemplate gridFsTemplate;
     @Autowired private DocumentUploadRepository docRepo;
+    @Autowired private DocumentBlobService blobService;
+    @Autowired private DocumentDiskCache diskCache;
 public DocumentUpload upload(MultipartFile file, String entityType, String entityId, String purpose, String userId, String role) throws IOException {
-    ObjectId fileId = gridFsTemplate.store(file.getInputStream(), file.getOriginalFilename(), file.getContentType());
+    // The part is already spooled by the multipart resolver; hashing it first spares GridFS a duplicate write
+    String hash = blobService.hash(file.getInputStream());
+    DocumentBlob blob = blobService.link(hash);
+    if (blob == null) {
+        ObjectId fileId = gridFsTemplate.store(file.getInputStream(), file.getOriginalFilename(), file.getContentType());
+        blob = blobService.acquire(hash, fileId, file.getSize());
+    }
 
     DocumentUpload doc = new DocumentUpload();
-    doc.setFileId(fileId.toString());
+    doc.setFileId(blob.getFileId());
+    doc.setSha256(hash);
     doc.setFileName(file.getOriginalFilename());
     doc.setFileType(file.getContentType());
     doc.setFileSize(file.getSize());
@@ -43,20 +50,53 @@ public DocumentUpload upload(MultipartFile file, String entityType, String entit
     return docRepo.save(doc);
 }
 
+    /**
+     * Records a document whose content is already stored, found by its SHA-256,
+     * so the client need not upload it again. 404 if the content is unknown.
+     */
+    public DocumentUpload link(String sha256, String fileName, String fileType, String entityType, String entityId,
+                               String purpose, String userId, String role) {
+        DocumentBlob blob = blobService.link(sha256);
+        if (blob == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No stored content with that SHA-256");
+        }
+        DocumentUpload doc = new DocumentUpload();
+        doc.setFileId(blob.getFileId());
+        doc.setSha256(blob.getId());
+        doc.setFileName(fileName);
+        doc.setFileType(fileType);
+        doc.setFileSize(blob.getLength());
+        doc.setUploadedBy(userId);
+        doc.setRole(role);
+        doc.setUploadedAt(LocalDate.now().toString());
+        doc.setEntityType(entityType);
+        doc.setEntityId(entityId);
+        doc.setPurpose(purpose);
+        return docRepo.save(doc);
+    }
+
+    /** Deletes the record and drops its reference; the content goes once nothing references it. */
+    public void delete(String documentId, String requesterId, boolean govt) {
+        DocumentUpload doc = docRepo.findById(documentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No such document"));
+        if (!govt && (requesterId == null || !requesterId.equals(doc.getUploadedBy()))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only the uploader or a GOVT user can delete this document");
+        }
+        docRepo.delete(doc);
+        if (doc.getSha256() != null) {
+            blobService.release(doc.getSha256());
+        } else if (doc.getFileId() != null && ObjectId.isValid(doc.getFileId())) {
+            // Uploaded before blobs existed: the record was the file's only owner
+            gridFsTemplate.delete(Query.query(Criteria.where("_id").is(new ObjectId(doc.getFileId()))));
+            diskCache.invalidate(doc.getFileId());
+        }
+    }
+
     public List<DocumentUpload> getDocumentsForEntity(String entityType, String entityId) {
     return docRepo.findByEntityTypeAndEntityId(entityType, entityId);
 }
 
 
-    public InputStream getFileStream(String fileId) throws IOException {
-        GridFSFile file = getGridFSFile(fileId);
-        return gridFsTemplate.getResource(file).getInputStream();
-    }
-
-    public GridFSFile getGridFSFile(String fileId) {
-        return gridFsTemplate.findOne(Query.query(Criteria.where("_id").is(new ObjectId(fileId))));
-    }
-
     public List<DocumentUpload> listProjectFiles(String projectId) {
         return docRepo.findByProjectId(projectId);
     }
@@ -0,0 +1,58 @@
+package org.govt.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+/**
+ * Writes a whole collection as newline-delimited JSON straight from a Mongo
+ * cursor. Only one cursor batch is held in memory at a time, and a slow client
+ * simply blocks the write, which stops further batches from being fetched.
+ */
+@Service
+public class ExportService {
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Returns the number of records written
+    public <T> long exportNdjson(Class<T> type, OutputStream out) throws IOException {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+
+        long written = 0;
+        try (Stream<T> records = mongoTemplate.stream(query, type);
+                SequenceWriter writer = objectMapper.writer()
+                        .withRootValueSeparator("\n")
+                        .writeValues(out)) {
+            for (T record : (Iterable<T>) records::iterator) {
+                writer.write(record);
+                if (++written % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            // The separator only goes between records, terminate the last line too
+            writer.flush();
+            if (written > 0) {
+                out.write('\n');
+            }
+        }
+        return written;
+    }
+}
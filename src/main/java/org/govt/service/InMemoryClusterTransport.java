@@ -0,0 +1,43 @@
+package org.govt.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.govt.model.ClusterMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stand-in transport for tests and local runs: the "cluster" is every
+ * application context in this JVM, so several contexts started side by side
+ * see each other's messages without any infrastructure.
+ */
+@Component
+@ConditionalOnExpression("'${chat.broker.mode:simple}' == 'fanout' and '${chat.fanout.transport:mongo}' == 'in-memory'")
+public class InMemoryClusterTransport implements ClusterTransport {
+
+    private static final List<Consumer<ClusterMessage>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<ClusterMessage>> own = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ClusterMessage message) {
+        for (Consumer<ClusterMessage> listener : LISTENERS) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterMessage> listener) {
+        own.add(listener);
+        LISTENERS.add(listener);
+    }
+
+    @PreDestroy
+    void close() {
+        LISTENERS.removeAll(own);
+    }
+}
@@ -0,0 +1,36 @@
+package org.govt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the model-declared indexes at startup, before any other startup job
+ * (e.g. the user directory migration) relies on them.
+ */
+@Component
+@Order(0)
+public class IndexBootstrap implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexBootstrap.class);
+
+    @Autowired
+    private IndexManagementService indexManagementService;
+
+    @Value("${mongo.indexes.bootstrap:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        int failures = indexManagementService.ensureDeclaredIndexes();
+        log.info("Index bootstrap finished, {} index(es) failed", failures);
+    }
+}
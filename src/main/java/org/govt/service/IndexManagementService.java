@@ -0,0 +1,146 @@
+package org.govt.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.govt.model.IndexReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates the indexes declared on the {@code @Document} models
+ * ({@code @Indexed}, {@code @CompoundIndex}) and reports how they compare to
+ * what actually exists in Mongo.
+ */
+@Service
+public class IndexManagementService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexManagementService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    // Returns the number of indexes that could not be created
+    public int ensureDeclaredIndexes() {
+        int failures = 0;
+        for (Map.Entry<Class<?>, List<IndexDefinition>> entry : declaredIndexes().entrySet()) {
+            for (IndexDefinition index : entry.getValue()) {
+                try {
+                    mongoTemplate.indexOps(entry.getKey()).ensureIndex(index);
+                } catch (RuntimeException e) {
+                    // e.g. an index with the same keys but different options already exists
+                    failures++;
+                    log.warn("Could not create index {} on {}: {}", keyOf(index.getIndexKeys()),
+                            mongoTemplate.getCollectionName(entry.getKey()), e.getMessage());
+                }
+            }
+        }
+        return failures;
+    }
+
+    public List<IndexReport> report() {
+        List<IndexReport> reports = new ArrayList<>();
+        for (Map.Entry<Class<?>, List<IndexDefinition>> entry : declaredIndexes().entrySet()) {
+            String collection = mongoTemplate.getCollectionName(entry.getKey());
+            IndexReport report = new IndexReport();
+            report.setCollection(collection);
+
+            for (IndexDefinition index : entry.getValue()) {
+                report.getDeclared().add(keyOf(index.getIndexKeys()));
+            }
+            if (mongoTemplate.collectionExists(collection)) {
+                for (IndexInfo info : mongoTemplate.indexOps(collection).getIndexInfo()) {
+                    report.getExisting().add(keyOf(info));
+                }
+            }
+
+            for (String key : report.getDeclared()) {
+                if (!report.getExisting().contains(key)) {
+                    report.getMissing().add(key);
+                }
+            }
+            for (String key : report.getExisting()) {
+                if (!key.equals("_id:1") && !report.getDeclared().contains(key)) {
+                    report.getUndeclared().add(key);
+                }
+            }
+            report.getUnused().addAll(unusedIndexes(collection));
+            reports.add(report);
+        }
+        return reports;
+    }
+
+    private Map<Class<?>, List<IndexDefinition>> declaredIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        Map<Class<?>, List<IndexDefinition>> declared = new LinkedHashMap<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            List<IndexDefinition> indexes = new ArrayList<>();
+            resolver.resolveIndexFor(entity.getType()).forEach(indexes::add);
+            if (!indexes.isEmpty()) {
+                declared.put(entity.getType(), indexes);
+            }
+        }
+        return declared;
+    }
+
+    // $indexStats counts accesses since the last mongod restart; needs the indexStats privilege
+    private List<String> unusedIndexes(String collection) {
+        List<String> unused = new ArrayList<>();
+        if (!mongoTemplate.collectionExists(collection)) {
+            return unused;
+        }
+        try {
+            for (Document stats : mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))) {
+                Document accesses = stats.get("accesses", Document.class);
+                Number ops = accesses != null ? accesses.get("ops", Number.class) : null;
+                if (ops != null && ops.longValue() == 0 && !"_id_".equals(stats.getString("name"))) {
+                    unused.add(keyOf(stats.get("key", Document.class)));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read $indexStats for {}: {}", collection, e.getMessage());
+        }
+        return unused;
+    }
+
+    private static String keyOf(Document keys) {
+        return keys.entrySet().stream()
+                // $indexStats may report 1.0 where the definition says 1
+                .map(e -> e.getKey() + ":" + (e.getValue() instanceof Number n ? n.intValue() : e.getValue()))
+                .collect(Collectors.joining(","));
+    }
+
+    private static String keyOf(IndexInfo info) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (IndexField field : info.getIndexFields()) {
+            if (field.getDirection() != null) {
+                keys.put(field.getKey(), field.getDirection() == Sort.Direction.ASC ? 1 : -1);
+            } else {
+                keys.put(field.getKey(), field.isText() ? "text" : field.isHashed() ? "hashed" : "2dsphere");
+            }
+        }
+        return keyOf(new Document(keys));
+    }
+}
@@ -0,0 +1,160 @@
+package org.govt.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.govt.model.ClusterMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cluster transport over the Mongo database every node already shares: messages
+ * are appended to a capped collection and each node follows it with a tailable
+ * cursor. The capped size bounds storage; a node only reads messages written
+ * after it started.
+ *
+ * Ids are generated by the publishing nodes, whose clocks differ, so they are
+ * never compared. The cursor follows the collection's insertion ($natural)
+ * order and resumes after the last document it saw, found by its id.
+ */
+@Component
+@ConditionalOnExpression("'${chat.broker.mode:simple}' == 'fanout' and '${chat.fanout.transport:mongo}' == 'mongo'")
+public class MongoClusterTransport implements ClusterTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoClusterTransport.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${chat.fanout.mongo.collection:chat_fanout}")
+    private String collectionName;
+
+    @Value("${chat.fanout.mongo.capped-size-bytes:16777216}")
+    private long cappedSizeBytes;
+
+    private final List<Consumer<ClusterMessage>> listeners = new CopyOnWriteArrayList<>();
+    private MongoCollection<Document> collection;
+    private Thread tailer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        if (!mongoTemplate.collectionExists(collectionName)) {
+            try {
+                mongoTemplate.createCollection(collectionName, CollectionOptions.empty().capped().size(cappedSizeBytes));
+            } catch (RuntimeException e) {
+                // Another node created it first
+                log.info("Fan-out collection {} not created: {}", collectionName, e.getMessage());
+            }
+        }
+        collection = mongoTemplate.getCollection(collectionName);
+        running = true;
+        tailer = new Thread(this::tail, "chat-fanout-tailer");
+        tailer.setDaemon(true);
+        tailer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        tailer.interrupt();
+    }
+
+    @Override
+    public void publish(ClusterMessage message) {
+        collection.insertOne(new Document("nodeId", message.getNodeId())
+                .append("destination", message.getDestination())
+                .append("contentType", message.getContentType())
+                .append("nativeHeaders", message.getNativeHeaders())
+                .append("payload", new Binary(message.getPayload())));
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterMessage> listener) {
+        listeners.add(listener);
+    }
+
+    private void tail() {
+        // Start at the current end: whatever is already stored was published before this node started
+        Document newest = collection.find().sort(new Document("$natural", -1)).limit(1).first();
+        Object lastSeen = newest != null ? newest.get("_id") : null;
+        while (running) {
+            try (MongoCursor<Document> cursor = collection.find()
+                    .sort(new Document("$natural", 1))
+                    .cursorType(CursorType.TailableAwait)
+                    .noCursorTimeout(true)
+                    .iterator()) {
+                if (lastSeen != null) {
+                    skipPast(cursor, lastSeen);
+                }
+                while (running && cursor.hasNext()) {
+                    Document document = cursor.next();
+                    lastSeen = document.get("_id");
+                    dispatch(document);
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Fan-out cursor closed: {}", e.getMessage());
+            }
+            // A tailable cursor on an empty capped collection ends straight away; wait and reopen
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Moves the cursor past the document already dispatched (or skipped at startup)
+    private void skipPast(MongoCursor<Document> cursor, Object lastSeen) {
+        if (collection.find(Filters.eq("_id", lastSeen)).first() == null) {
+            // Overwritten by the capped collection: everything still stored is newer, so nothing is skipped
+            log.warn("Fan-out position lost to the capped collection wrapping; messages may have been missed");
+            return;
+        }
+        Document document;
+        while (running && (document = cursor.tryNext()) != null) {
+            if (lastSeen.equals(document.get("_id"))) {
+                return;
+            }
+        }
+        log.warn("Fan-out position overwritten while resuming; messages may have been missed");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(Document document) {
+        ClusterMessage message = new ClusterMessage(
+                document.getString("nodeId"),
+                document.getString("destination"),
+                document.getString("contentType"),
+                (Map<String, List<String>>) document.get("nativeHeaders"),
+                document.get("payload", Binary.class).getData());
+        for (Consumer<ClusterMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                log.error("Error handling fan-out message for {}", message.getDestination(), e);
+            }
+        }
+    }
+}
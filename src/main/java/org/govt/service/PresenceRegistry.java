@@ -0,0 +1,188 @@
+package org.govt.service;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.govt.model.ClusterMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Which chat users are connected, fed by STOMP CONNECT/DISCONNECT events.
+ *
+ * Local sessions are tracked per user. In fanout mode every node also
+ * publishes its changes, plus a periodic snapshot of its users, over the
+ * {@link ClusterTransport}; a node that stops sending snapshots is forgotten
+ * after a few intervals. In relay mode Spring's multi-server user registry
+ * already knows the users of the other nodes and is consulted as well.
+ */
+@Service
+public class PresenceRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    // Cluster messages with this destination carry presence, not broker messages
+    public static final String CLUSTER_DESTINATION = "cluster:presence";
+
+    private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>(); // userId -> session ids
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();             // userId -> last disconnect
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();    // nodeId -> its users
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private ScheduledExecutorService heartbeat;
+
+    @Autowired(required = false)
+    private ClusterTransport transport;
+
+    @Autowired
+    private SimpUserRegistry simpUserRegistry;
+
+    @Value("${chat.presence.heartbeat-seconds:10}")
+    private long heartbeatSeconds;
+
+    private static class RemoteNode {
+        final Set<String> users = ConcurrentHashMap.newKeySet();
+        volatile long heardAt = System.currentTimeMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (transport == null) {
+            return;
+        }
+        transport.subscribe(this::receive);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chat-presence-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendSnapshot, 0, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            // Tell the other nodes right away instead of letting our entry expire
+            publish("offline", new ArrayList<>(localSessions.keySet()));
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) {
+            return;
+        }
+        boolean[] first = new boolean[1];
+        localSessions.compute(user.getName(), (userId, sessions) -> {
+            Set<String> updated = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            first[0] = updated.isEmpty();
+            updated.add(sessionId);
+            return updated;
+        });
+        if (first[0]) {
+            publish("online", List.of(user.getName()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+        String userId = user.getName();
+        lastSeen.put(userId, System.currentTimeMillis());
+        boolean hadSessions = localSessions.containsKey(userId);
+        Set<String> remaining = localSessions.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(event.getSessionId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (hadSessions && remaining == null) {
+            publish("offline", List.of(userId));
+        }
+    }
+
+    public boolean isOnline(String userId) {
+        if (localSessions.containsKey(userId)) {
+            return true;
+        }
+        long expiry = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(heartbeatSeconds * 3);
+        for (RemoteNode node : remoteNodes.values()) {
+            if (node.heardAt >= expiry && node.users.contains(userId)) {
+                return true;
+            }
+        }
+        return simpUserRegistry.getUser(userId) != null;
+    }
+
+    // When the user last disconnected from this node, or null if not seen since startup
+    public Long lastSeen(String userId) {
+        return lastSeen.get(userId);
+    }
+
+    private void sendSnapshot() {
+        try {
+            publish("snapshot", new ArrayList<>(localSessions.keySet()));
+            long expiry = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(heartbeatSeconds * 3);
+            remoteNodes.values().removeIf(node -> node.heardAt < expiry);
+        } catch (RuntimeException e) {
+            log.warn("Could not send presence snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void publish(String type, List<String> users) {
+        if (transport == null) {
+            return;
+        }
+        transport.publish(new ClusterMessage(nodeId, CLUSTER_DESTINATION, null,
+                Map.of("type", List.of(type), "users", users), new byte[0]));
+    }
+
+    private void receive(ClusterMessage message) {
+        if (!CLUSTER_DESTINATION.equals(message.getDestination()) || nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        String type = message.getNativeHeaders().get("type").get(0);
+        List<String> users = message.getNativeHeaders().getOrDefault("users", List.of());
+        RemoteNode node = remoteNodes.computeIfAbsent(message.getNodeId(), id -> new RemoteNode());
+        node.heardAt = System.currentTimeMillis();
+        switch (type) {
+            case "snapshot":
+                node.users.retainAll(users);
+                node.users.addAll(users);
+                break;
+            case "online":
+                node.users.addAll(users);
+                break;
+            case "offline":
+                node.users.removeAll(users);
+                long now = System.currentTimeMillis();
+                users.forEach(userId -> lastSeen.put(userId, now));
+                break;
+            default:
+                break;
+        }
+    }
+}
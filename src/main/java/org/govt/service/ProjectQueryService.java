@@ -0,0 +1,81 @@
+package org.govt.service;
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.govt.model.CursorPage;
+import org.govt.model.Project;
+import org.govt.model.ProjectFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Keyset-paginated project listings. Pages are ordered newest first by _id and
+ * the cursor is the last _id of the previous page, so every page costs the
+ * same no matter how deep the client scrolls.
+ */
+@Service
+public class ProjectQueryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Large per-project lists that listing screens do not show
+    private static final String[] HEAVY_FIELDS = {
+            "progressSteps", "requiredMaterials", "estimatedQuantities", "documentIds" };
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public CursorPage<Project> page(ProjectFilter filter, String cursor, Integer limit, boolean summary) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Criteria criteria = new Criteria();
+        if (filter.getStatus() != null) {
+            criteria.and("status").is(filter.getStatus());
+        }
+        if (filter.getDepartmentId() != null) {
+            criteria.and("departmentId").is(filter.getDepartmentId());
+        }
+        if (filter.getProjectManagerId() != null) {
+            criteria.and("projectManagerId").is(filter.getProjectManagerId());
+        }
+        if (filter.getSupervisorId() != null) {
+            criteria.and("assignedSupervisorId").is(filter.getSupervisorId());
+        }
+        if (filter.getContractorId() != null) {
+            criteria.and("assignedContractorId").is(filter.getContractorId());
+        }
+        if (filter.getSupplierId() != null) {
+            criteria.and("assignedSupplierIds").is(filter.getSupplierId());
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            if (!ObjectId.isValid(cursor)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            criteria.and("_id").lt(new ObjectId(cursor));
+        }
+
+        // Fetch one extra row to know whether another page exists
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(size + 1);
+        if (summary) {
+            query.fields().exclude(HEAVY_FIELDS);
+        }
+
+        List<Project> projects = mongoTemplate.find(query, Project.class);
+        String nextCursor = null;
+        if (projects.size() > size) {
+            projects = projects.subList(0, size);
+            nextCursor = projects.get(size - 1).getId();
+        }
+        return new CursorPage<>(projects, nextCursor);
+    }
+}
@@ -0,0 +1,50 @@
+package org.govt.service;
+
+import java.time.Duration;
+import java.util.Date;
+
+import org.govt.model.RevokedToken;
+import org.govt.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Tracks logged-out tokens by their jti. Lookups are cached for a short time,
+ * so a token is checked against Mongo at most once per cache period.
+ */
+@Service
+public class TokenRevocationService {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private final Cache<String, Boolean> cache;
+
+    public TokenRevocationService(
+            @Value("${auth.revocation-cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${auth.revocation-cache.max-size:50000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || tokenId.isEmpty()) {
+            return false;
+        }
+        return cache.get(tokenId, revokedTokenRepository::existsById);
+    }
+
+    public void revoke(String tokenId, String username, Date expiresAt) {
+        if (tokenId == null || tokenId.isEmpty()) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, username, expiresAt));
+        cache.put(tokenId, Boolean.TRUE);
+    }
+}
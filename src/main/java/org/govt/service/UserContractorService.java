@@ -1,14 +1,18 @@
 package org.govt.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginPipeline;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Register;
 import org.govt.model.Project;
+import org.govt.model.UserAccount;
 import org.govt.model.User_contractor;
 import org.govt.repository.ProjectRepository;
 import org.govt.repository.UserContractorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -19,29 +23,52 @@ public class UserContractorService {
     private UserContractorRepository userRepository;
     @Autowired
     private ProjectRepository projectRepo;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordEncoder passwordEncoder;
     @Autowired
     private JwtUtil jwt;
+    @Autowired
+    private UserResolutionService userResolutionService;
+    @Autowired
+    private UserDirectoryService userDirectory;
+    @Autowired
+    private LoginPipeline loginPipeline;
 
     public Register registerContractor(User_contractor userContractor) {
-        if (findByUsername(userContractor.getUsername()) != null) {
+        UserAccount account = userDirectory.findByUsername(userContractor.getUsername());
+        if (account != null && account.getRole() != UserRole.CONTRACTOR) {
+            return new Register("Username already taken!!", null, null);
+        }
+        User_contractor existing = account != null
+                ? userRepository.findById(account.getProfileId()).orElse(null)
+                : findByUsername(userContractor.getUsername());
+        if (existing != null) {
             return new Register("User  already exists!!", jwt.generateToken(userContractor.getUsername()),
-                    findByUsername(userContractor.getUsername()));
+                    existing);
         }
 
         userContractor.setPassword(passwordEncoder.encode(userContractor.getPassword()));
-        userRepository.save(userContractor);
-        return new Register("Registered successfully!!!", jwt.generateToken(userContractor.getUsername()),
-                findByUsername(userContractor.getUsername()));
+        User_contractor saved = userRepository.save(userContractor);
+        if (!userDirectory.register(saved.getUsername(), UserRole.CONTRACTOR, saved.getId())) {
+            userRepository.delete(saved);
+            return new Register("Username already taken!!", null, null);
+        }
+        userResolutionService.evict(saved.getUsername());
+        return new Register("Registered successfully!!!", jwt.generateToken(saved.getUsername()), saved);
     }
 
     public User_contractor findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
-    public boolean authenticateContractor(String username, String rawPassword) {
+    // Completes with the user when the password matches, null otherwise (see LoginPipeline)
+    public CompletableFuture<User_contractor> authenticateContractor(String username, String rawPassword) {
         User_contractor contractor = userRepository.findByUsername(username);
-        return contractor != null && passwordEncoder.matches(rawPassword, contractor.getPassword());
+        if (contractor == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loginPipeline.verify(rawPassword, contractor.getPassword(), User_contractor.class, contractor.getId())
+                .thenApply(matches -> matches ? contractor : null);
     }
 
     public User_contractor getById(String contractorId) {
@@ -50,6 +77,7 @@ public class UserContractorService {
 
     public void updateUserContractor(User_contractor userContractor) {
         userRepository.save(userContractor);
+        userResolutionService.evict(userContractor.getUsername());
     }
 
     public List<Project> getProject(String id) {
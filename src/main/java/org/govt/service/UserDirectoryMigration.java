@@ -0,0 +1,92 @@
+package org.govt.service;
+
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.govt.Enums.UserRole;
+import org.govt.model.UserAccount;
+import org.govt.model.User_ProjectManager;
+import org.govt.model.User_Supervisor;
+import org.govt.model.User_Supplier;
+import org.govt.model.User_contractor;
+import org.govt.model.User_govt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the unified {@code users} collection from the five role collections at
+ * startup. Idempotent: entries are only inserted, never overwritten, so it is safe
+ * to run on every boot. Collections are processed in the same precedence the
+ * old auth fan-out used, so a username present in two roles keeps the role
+ * it authenticated as before.
+ */
+@Component
+@Order(1) // after IndexBootstrap, which creates the unique username index
+public class UserDirectoryMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectoryMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${users.migration.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        int added = migrate(User_Supplier.class, UserRole.SUPPLIER)
+                + migrate(User_contractor.class, UserRole.CONTRACTOR)
+                + migrate(User_ProjectManager.class, UserRole.PROJECT_MANAGER)
+                + migrate(User_govt.class, UserRole.GOVT)
+                + migrate(User_Supervisor.class, UserRole.SUPERVISOR);
+
+        log.info("User directory migration finished, {} entries added", added);
+    }
+
+    private int migrate(Class<?> profileType, UserRole role) {
+        Query query = new Query(Criteria.where("username").ne(null));
+        query.fields().include("username");
+        String collection = mongoTemplate.getCollectionName(profileType);
+
+        int added = 0;
+        int pending = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserAccount.class);
+
+        try (Stream<Document> profiles = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document profile : (Iterable<Document>) profiles::iterator) {
+                bulk.upsert(
+                        Query.query(Criteria.where("username").is(profile.getString("username"))),
+                        new Update()
+                                .setOnInsert("role", role.name())
+                                .setOnInsert("profileId", String.valueOf(profile.get("_id")))
+                                .setOnInsert("createdAt", System.currentTimeMillis()));
+                if (++pending == BATCH_SIZE) {
+                    added += bulk.execute().getUpserts().size();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserAccount.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            added += bulk.execute().getUpserts().size();
+        }
+        return added;
+    }
+}
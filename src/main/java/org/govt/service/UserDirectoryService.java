@@ -0,0 +1,129 @@
+package org.govt.service;
+
+import org.govt.Enums.UserRole;
+import org.govt.model.UserAccount;
+import org.govt.model.User_ProjectManager;
+import org.govt.model.User_Supervisor;
+import org.govt.model.User_Supplier;
+import org.govt.model.User_contractor;
+import org.govt.model.User_govt;
+import org.govt.repository.UserAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+/**
+ * Access to the unified {@code users} collection: one entry per username with
+ * its role and the id of the profile in the role's collection.
+ */
+@Service
+public class UserDirectoryService {
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public UserAccount findByUsername(String username) {
+        return userAccountRepository.findByUsername(username);
+    }
+
+    /**
+     * Claims the username for a newly saved profile. Returns false if another
+     * registration got the username first (unique index on username). An
+     * entry of the same role whose profile no longer exists (deleted, or lost
+     * to a crash between the two writes) is taken over instead.
+     */
+    public boolean register(String username, UserRole role, String profileId) {
+        try {
+            userAccountRepository.insert(new UserAccount(username, role, profileId));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return repointStale(username, role, profileId);
+        }
+    }
+
+    private boolean repointStale(String username, UserRole role, String profileId) {
+        UserAccount existing = findByUsername(username);
+        if (existing == null || existing.getRole() != role || (existing.getProfileId() != null
+                && mongoTemplate.exists(Query.query(Criteria.where("_id").is(existing.getProfileId())), profileClass(role)))) {
+            return false;
+        }
+        // Conditional on the stale id, so only one of two racing registrations takes the entry over
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("username").is(username).and("profileId").is(existing.getProfileId())),
+                Update.update("profileId", profileId),
+                UserAccount.class).getModifiedCount() > 0;
+    }
+
+    // Adds an entry for a profile the migration has not seen; never overwrites an existing entry
+    public void backfill(String username, UserRole role, String profileId) {
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("username").is(username)),
+                new Update()
+                        .setOnInsert("role", role)
+                        .setOnInsert("profileId", profileId)
+                        .setOnInsert("createdAt", System.currentTimeMillis()),
+                UserAccount.class);
+    }
+
+    public UserAccount backfill(UserDetails profile) {
+        UserRole role = roleOf(profile);
+        String profileId = profileIdOf(profile);
+        backfill(profile.getUsername(), role, profileId);
+        return new UserAccount(profile.getUsername(), role, profileId);
+    }
+
+    static UserRole roleOf(UserDetails profile) {
+        if (profile instanceof User_Supplier) {
+            return UserRole.SUPPLIER;
+        } else if (profile instanceof User_contractor) {
+            return UserRole.CONTRACTOR;
+        } else if (profile instanceof User_ProjectManager) {
+            return UserRole.PROJECT_MANAGER;
+        } else if (profile instanceof User_govt) {
+            return UserRole.GOVT;
+        } else if (profile instanceof User_Supervisor) {
+            return UserRole.SUPERVISOR;
+        }
+        throw new IllegalArgumentException("Unknown user type: " + profile.getClass().getName());
+    }
+
+    static Class<? extends UserDetails> profileClass(UserRole role) {
+        switch (role) {
+            case SUPPLIER:
+                return User_Supplier.class;
+            case CONTRACTOR:
+                return User_contractor.class;
+            case PROJECT_MANAGER:
+                return User_ProjectManager.class;
+            case GOVT:
+                return User_govt.class;
+            case SUPERVISOR:
+                return User_Supervisor.class;
+            default:
+                throw new IllegalArgumentException("Unknown role: " + role);
+        }
+    }
+
+    static String profileIdOf(UserDetails profile) {
+        if (profile instanceof User_Supplier supplier) {
+            return supplier.getId();
+        } else if (profile instanceof User_contractor contractor) {
+            return contractor.getId();
+        } else if (profile instanceof User_ProjectManager manager) {
+            return manager.getId();
+        } else if (profile instanceof User_govt govt) {
+            return govt.getId();
+        } else if (profile instanceof User_Supervisor supervisor) {
+            return supervisor.getId();
+        }
+        throw new IllegalArgumentException("Unknown user type: " + profile.getClass().getName());
+    }
+}
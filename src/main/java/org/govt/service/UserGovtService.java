@@ -1,11 +1,15 @@
 package org.govt.service;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginPipeline;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Register;
+import org.govt.model.UserAccount;
 import org.govt.model.User_govt;
 import org.govt.repository.UserGovtRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -18,27 +22,49 @@ public class UserGovtService {
 
     @Autowired
     private JwtUtil jwt;
+    @Autowired
+    private UserResolutionService userResolutionService;
+    @Autowired
+    private UserDirectoryService userDirectory;
+    @Autowired
+    private LoginPipeline loginPipeline;
 
     public UserGovtService(UserGovtRepository user){
         this.userGovtRepository =user;
-        this.password=new BCryptPasswordEncoder();
     }
 
     public Register registerGovt(User_govt userGovt){
-        if(findByUsername(userGovt.getUsername())!=null){
-            return new Register("User Already Exists!!!!", jwt.generateToken(userGovt.getUsername()),findByUsername(userGovt.getUsername()));
+        UserAccount account = userDirectory.findByUsername(userGovt.getUsername());
+        if(account!=null && account.getRole()!=UserRole.GOVT){
+            return new Register("Username already taken!!", null, null);
         }
-        userGovt.setPassword(userGovt.getPassword());
-        userGovtRepository.save(userGovt);
-        return new Register("Registered Successfully!!!", jwt.generateToken(userGovt.getUsername()),findByUsername(userGovt.getUsername()));
+        User_govt existing = account!=null
+                ? userGovtRepository.findById(account.getProfileId()).orElse(null)
+                : findByUsername(userGovt.getUsername());
+        if(existing!=null){
+            return new Register("User Already Exists!!!!", jwt.generateToken(userGovt.getUsername()),existing);
+        }
+        userGovt.setPassword(password.encode(userGovt.getPassword()));
+        User_govt saved = userGovtRepository.save(userGovt);
+        if(!userDirectory.register(saved.getUsername(), UserRole.GOVT, saved.getId())){
+            userGovtRepository.delete(saved);
+            return new Register("Username already taken!!", null, null);
+        }
+        userResolutionService.evict(saved.getUsername());
+        return new Register("Registered Successfully!!!", jwt.generateToken(saved.getUsername()),saved);
     }
      public User_govt findByUsername(String username) {
         return userGovtRepository.findByUsername(username);
     }
 
-    public boolean authenticateGovt(String username,String pass){
-        User_govt govt= userGovtRepository.findByUsername(username);
-        return govt!=null && password.matches(pass,govt.getPassword());
+    // Completes with the user when the password matches, null otherwise (see LoginPipeline)
+    public CompletableFuture<User_govt> authenticateGovt(String username, String rawPassword) {
+        User_govt govt = userGovtRepository.findByUsername(username);
+        if (govt == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loginPipeline.verify(rawPassword, govt.getPassword(), User_govt.class, govt.getId())
+                .thenApply(matches -> matches ? govt : null);
     }
 
 }
@@ -1,11 +1,15 @@
 package org.govt.service;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginPipeline;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Register;
+import org.govt.model.UserAccount;
 import org.govt.model.User_ProjectManager;
 import org.govt.repository.UserProjectManagerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -14,27 +18,50 @@ public class UserProjectManagerService {
     @Autowired
     private  UserProjectManagerRepository userProjectManagerRepository;
     @Autowired
-    private  PasswordEncoder password=new BCryptPasswordEncoder();
+    private  PasswordEncoder password;
 
     @Autowired
     private JwtUtil jwt;
+    @Autowired
+    private UserResolutionService userResolutionService;
+    @Autowired
+    private UserDirectoryService userDirectory;
+    @Autowired
+    private LoginPipeline loginPipeline;
 
 
 
     public Register registerProjectManager(User_ProjectManager user_projectManager){
-        if(findByUsername(user_projectManager.getUsername())!=null){
-            return new Register("User Already Exists!!!!", jwt.generateToken(user_projectManager.getUsername()),findByUsername(user_projectManager.getUsername()));
+        UserAccount account = userDirectory.findByUsername(user_projectManager.getUsername());
+        if(account!=null && account.getRole()!=UserRole.PROJECT_MANAGER){
+            return new Register("Username already taken!!", null, null);
+        }
+        User_ProjectManager existing = account!=null
+                ? userProjectManagerRepository.findById(account.getProfileId()).orElse(null)
+                : findByUsername(user_projectManager.getUsername());
+        if(existing!=null){
+            return new Register("User Already Exists!!!!", jwt.generateToken(user_projectManager.getUsername()),existing);
         }
         user_projectManager.setPassword(password.encode(user_projectManager.getPassword()));
-        userProjectManagerRepository.save(user_projectManager);
-        return new Register("Registered Successfully!!!", jwt.generateToken(user_projectManager.getUsername()),findByUsername(user_projectManager.getUsername()));
+        User_ProjectManager saved = userProjectManagerRepository.save(user_projectManager);
+        if(!userDirectory.register(saved.getUsername(), UserRole.PROJECT_MANAGER, saved.getId())){
+            userProjectManagerRepository.delete(saved);
+            return new Register("Username already taken!!", null, null);
+        }
+        userResolutionService.evict(saved.getUsername());
+        return new Register("Registered Successfully!!!", jwt.generateToken(saved.getUsername()),saved);
     }
 public User_ProjectManager findByUsername(String username) {
         return userProjectManagerRepository.findByUsername(username);
     }
-    public boolean authenticateProjectManager(String username,String pass){
-        User_ProjectManager user1= userProjectManagerRepository.findByUsername(username);
-        return user1!=null && password.matches(pass,user1.getPassword());
+    // Completes with the user when the password matches, null otherwise (see LoginPipeline)
+    public CompletableFuture<User_ProjectManager> authenticateProjectManager(String username, String rawPassword) {
+        User_ProjectManager manager = userProjectManagerRepository.findByUsername(username);
+        if (manager == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loginPipeline.verify(rawPassword, manager.getPassword(), User_ProjectManager.class, manager.getId())
+                .thenApply(matches -> matches ? manager : null);
     }
 
 }
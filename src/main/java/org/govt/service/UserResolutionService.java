@@ -0,0 +1,130 @@
+package org.govt.service;
+
+import java.time.Duration;
+
+import org.govt.Enums.UserRole;
+import org.govt.model.UserAccount;
+import org.govt.repository.UserContractorRepository;
+import org.govt.repository.UserGovtRepository;
+import org.govt.repository.UserProjectManagerRepository;
+import org.govt.repository.UserSupervisorRepository;
+import org.govt.repository.UserSupplierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Resolves a username to its {@link UserAccount} with one indexed read of the
+ * unified users collection. Hits are cached with a TTL and a size bound so that
+ * authenticated requests do not query Mongo once the cache is warm.
+ * Misses are not cached, so a freshly registered user is found immediately.
+ * Entries are keyed by the token's role as well as the username, because the
+ * role decides which legacy collection a miss falls back to.
+ */
+@Service
+public class UserResolutionService {
+
+    @Autowired
+    private UserDirectoryService userDirectory;
+
+    @Autowired
+    private UserSupplierRepository userSupplier;
+
+    @Autowired
+    private UserContractorRepository userContractor;
+
+    @Autowired
+    private UserGovtRepository usergovt;
+
+    @Autowired
+    private UserProjectManagerRepository userProject;
+
+    @Autowired
+    private UserSupervisorRepository userSupervisor;
+
+    private record Key(String username, UserRole role) {
+    }
+
+    private final Cache<Key, UserAccount> cache;
+
+    public UserResolutionService(
+            @Value("${auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${auth.user-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public UserAccount resolve(String username) {
+        return resolve(username, null);
+    }
+
+    // The role, when known from the token, narrows the legacy fallback to one collection
+    public UserAccount resolve(String username, UserRole role) {
+        if (username == null || username.isEmpty()) {
+            return null;
+        }
+        // Caffeine does not store null results, so unknown users are looked up again next time
+        return cache.get(new Key(username, role), key -> lookup(key.username(), key.role()));
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            cache.invalidate(new Key(username, null));
+            for (UserRole role : UserRole.values()) {
+                cache.invalidate(new Key(username, role));
+            }
+        }
+    }
+
+    private UserAccount lookup(String username, UserRole role) {
+        UserAccount account = userDirectory.findByUsername(username);
+        if (account != null) {
+            return account;
+        }
+
+        // Not in the directory yet (e.g. created before the migration ran): find it the old way and backfill
+        UserDetails profile = role != null ? legacyLookup(username, role) : legacyLookup(username);
+        return profile != null ? userDirectory.backfill(profile) : null;
+    }
+
+    // Same precedence as before: supplier, contractor, PM, govt, supervisor
+    private UserDetails legacyLookup(String username) {
+        UserDetails userDetails = userSupplier.findByUsername(username);
+        if (userDetails == null) {
+            userDetails = userContractor.findByUsername(username);
+        }
+        if (userDetails == null) {
+            userDetails = userProject.findByUsername(username);
+        }
+        if (userDetails == null) {
+            userDetails = usergovt.findByUsername(username);
+        }
+        if (userDetails == null) {
+            userDetails = userSupervisor.findByUsername(username);
+        }
+        return userDetails;
+    }
+
+    private UserDetails legacyLookup(String username, UserRole role) {
+        switch (role) {
+            case SUPPLIER:
+                return userSupplier.findByUsername(username);
+            case CONTRACTOR:
+                return userContractor.findByUsername(username);
+            case PROJECT_MANAGER:
+                return userProject.findByUsername(username);
+            case GOVT:
+                return usergovt.findByUsername(username);
+            case SUPERVISOR:
+                return userSupervisor.findByUsername(username);
+            default:
+                return legacyLookup(username);
+        }
+    }
+}
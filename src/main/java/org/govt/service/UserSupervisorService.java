@@ -3,6 +3,7 @@ package org.govt.service;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.data.mongodb.core.query.Query;
 
@@ -10,9 +11,12 @@ import java.util.Collections;
 import java.util.HashMap;
 
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginPipeline;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Register;
 import org.govt.model.Address;
 import org.govt.model.Project;
+import org.govt.model.UserAccount;
 import org.govt.model.User_Supervisor;
 import org.govt.model.User_Supplier;
 import org.govt.repository.ProjectRepository;
@@ -20,7 +24,6 @@ import org.govt.repository.UserSupervisorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -38,24 +41,42 @@ public class UserSupervisorService {
     ProjectRepository projectRepository;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private LoginPipeline loginPipeline;
+    @Autowired
+    private UserResolutionService userResolutionService;
+    @Autowired
+    private UserDirectoryService userDirectory;
 
     public List<User_Supervisor> getSupervisorsByZone(String zone) {
         return userSupervisorRepository.findByZone(zone);
     }
 
-    public UserSupervisorService(UserSupervisorRepository user) {
+    public UserSupervisorService(UserSupervisorRepository user, PasswordEncoder password) {
         this.userSupervisorRepository = user;
-        this.password = new BCryptPasswordEncoder();
+        this.password = password;
     }
 
     public Register registerSupervisor(User_Supervisor user_supervisor) {
-        if (findByUsername(user_supervisor.getUsername()) != null) {
+        UserAccount account = userDirectory.findByUsername(user_supervisor.getUsername());
+        if (account != null && account.getRole() != UserRole.SUPERVISOR) {
+            return new Register("Username already taken!!", null, null);
+        }
+        User_Supervisor existing = account != null
+                ? userSupervisorRepository.findById(account.getProfileId()).orElse(null)
+                : findByUsername(user_supervisor.getUsername());
+        if (existing != null) {
             return new Register("User Already Exists!!!!", jwt.generateToken(user_supervisor.getUsername()),
-                    findByUsername(user_supervisor.getUsername()));
+                    existing);
         }
 
         user_supervisor.setPassword(password.encode(user_supervisor.getPassword()));
         User_Supervisor uSupervisor = userSupervisorRepository.save(user_supervisor);
+        if (!userDirectory.register(uSupervisor.getUsername(), UserRole.SUPERVISOR, uSupervisor.getId())) {
+            userSupervisorRepository.delete(uSupervisor);
+            return new Register("Username already taken!!", null, null);
+        }
+        userResolutionService.evict(uSupervisor.getUsername());
         return new Register("Registered Successfully!!!", jwt.generateToken(user_supervisor.getUsername()),
                 uSupervisor);
     }
@@ -68,9 +89,14 @@ public class UserSupervisorService {
         return userSupervisorRepository.findById(id);
     }
 
-    public boolean authenticateSupervisor(String username, String pass) {
-        User_Supervisor user1 = userSupervisorRepository.findByUsername(username);
-        return user1 != null && password.matches(pass, user1.getPassword());
+    // Completes with the user when the password matches, null otherwise (see LoginPipeline)
+    public CompletableFuture<User_Supervisor> authenticateSupervisor(String username, String rawPassword) {
+        User_Supervisor supervisor = userSupervisorRepository.findByUsername(username);
+        if (supervisor == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loginPipeline.verify(rawPassword, supervisor.getPassword(), User_Supervisor.class, supervisor.getId())
+                .thenApply(matches -> matches ? supervisor : null);
     }
 
     public List<User_Supervisor> findNearestSupervisor(Address address) {
@@ -168,5 +194,6 @@ public class UserSupervisorService {
 
     public void updateUserSupervisor(User_Supervisor userSupervisor) {
         userSupervisorRepository.save(userSupervisor);
+        userResolutionService.evict(userSupervisor.getUsername());
     }
 }
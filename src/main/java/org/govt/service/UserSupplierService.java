@@ -3,21 +3,24 @@ package org.govt.service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 // import javax.management.Query; // Removed incorrect import
 import org.springframework.data.mongodb.core.query.Query;
 
 import org.govt.Authentication.JwtUtil;
+import org.govt.Authentication.LoginPipeline;
+import org.govt.Enums.UserRole;
 import org.govt.login_message.Register;
 import org.govt.model.Products;
 import org.govt.model.Project;
+import org.govt.model.UserAccount;
 import org.govt.model.User_Supplier;
 import org.govt.repository.ProjectRepository;
 import org.govt.repository.UserSupplierRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +39,12 @@ public class UserSupplierService {
     private UserSupplierRepository supplierRepo;
     @Autowired
     JwtUtil jwt = new JwtUtil();
+    @Autowired
+    private UserResolutionService userResolutionService;
+    @Autowired
+    private UserDirectoryService userDirectory;
+    @Autowired
+    private LoginPipeline loginPipeline;
 
     public List<User_Supplier> autoFetchSuppliers(String projectId) {
         Project project = projectRepo.findById(projectId).orElseThrow();
@@ -45,24 +54,39 @@ public class UserSupplierService {
     }
 
     public Register registerSupplier(User_Supplier userSupplier) {
-        if (findByUsername(userSupplier.getUsername()) != null) {
+        UserAccount account = userDirectory.findByUsername(userSupplier.getUsername());
+        if (account != null && account.getRole() != UserRole.SUPPLIER) {
+            return new Register("Username already taken!!", null, null);
+        }
+        User_Supplier existing = account != null
+                ? userSupplierRepository.findById(account.getProfileId()).orElse(null)
+                : findByUsername(userSupplier.getUsername());
+        if (existing != null) {
             return new Register("User Already Exists!!", jwt.generateToken(userSupplier.getUsername()),
-                    findByUsername(userSupplier.getUsername()));
+                    existing);
         }
         userSupplier.setPassword(password.encode(userSupplier.getPassword()));
-        userSupplierRepository.save(userSupplier);
-        return new Register("User Registered!!!", jwt.generateToken(userSupplier.getUsername()),
-                findByUsername(userSupplier.getUsername()));
+        User_Supplier saved = userSupplierRepository.save(userSupplier);
+        if (!userDirectory.register(saved.getUsername(), UserRole.SUPPLIER, saved.getId())) {
+            userSupplierRepository.delete(saved);
+            return new Register("Username already taken!!", null, null);
+        }
+        userResolutionService.evict(saved.getUsername());
+        return new Register("User Registered!!!", jwt.generateToken(saved.getUsername()), saved);
     }
 
     public User_Supplier findByUsername(String username) {
         return userSupplierRepository.findByUsername(username);
     }
 
-    public boolean authenticateSupplier(String username, String password1) {
-        BCryptPasswordEncoder pass = new BCryptPasswordEncoder();
+    // Completes with the user when the password matches, null otherwise (see LoginPipeline)
+    public CompletableFuture<User_Supplier> authenticateSupplier(String username, String rawPassword) {
         User_Supplier supplier = userSupplierRepository.findByUsername(username);
-        return supplier != null && password.matches(password1, supplier.getPassword());
+        if (supplier == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loginPipeline.verify(rawPassword, supplier.getPassword(), User_Supplier.class, supplier.getId())
+                .thenApply(matches -> matches ? supplier : null);
     }
 
     public List<User_Supplier> findByStreetAndZipCode(String street, String zipCode) {
@@ -107,7 +131,7 @@ public class UserSupplierService {
         }
 
         supplier.getCatalogProducts().add(product);
-        return userSupplierRepository.save(supplier);
+        return updateSupplier(supplier);
     }
 
     // Delete product from catalog
@@ -116,7 +140,7 @@ public class UserSupplierService {
                 .orElseThrow(() -> new RuntimeException("Supplier not found"));
 
         supplier.getCatalogProducts().removeIf(p -> p.getId().equals(productId));
-        return userSupplierRepository.save(supplier);
+        return updateSupplier(supplier);
     }
 
     // Change product availability
@@ -130,7 +154,7 @@ public class UserSupplierService {
             }
         });
 
-        return userSupplierRepository.save(supplier);
+        return updateSupplier(supplier);
     }
 
     // Update product details (optional)
@@ -140,7 +164,13 @@ public class UserSupplierService {
 
         supplier.getCatalogProducts().replaceAll(p -> p.getId().equals(updatedProduct.getId()) ? updatedProduct : p);
 
-        return userSupplierRepository.save(supplier);
+        return updateSupplier(supplier);
+    }
+
+    private User_Supplier updateSupplier(User_Supplier supplier) {
+        User_Supplier saved = userSupplierRepository.save(supplier);
+        userResolutionService.evict(saved.getUsername());
+        return saved;
     }
 
     public User_Supplier getProject(String id) {
@@ -0,0 +1,170 @@
+package org.govt.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.govt.model.WebSocketStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Counts WebSocket sessions and the clients dropped as slow consumers, and
+ * reports the queue depth of the inbound and outbound channel executors.
+ * A client that cannot keep up is cut off by the transport's send time and
+ * buffer limits (status SESSION_NOT_RELIABLE) rather than holding an
+ * outbound thread. The same figures, plus STOMP frames by direction and
+ * command, are registered with Micrometer under {@code chat.ws.*}.
+ */
+@Service
+public class WebSocketMetricsService {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketMetricsService.class);
+
+    private final AtomicLong openSessions = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+    private final AtomicLong transportErrors = new AtomicLong();
+
+    // Looked up on use: these beans come from WebSocketConfig, which uses this service to decorate the handler.
+    // A provider rather than @Lazy, whose proxy would hide the executor's real type
+    @Autowired
+    @Qualifier("clientInboundChannelExecutor")
+    private ObjectProvider<TaskExecutor> inboundExecutor;
+
+    @Autowired
+    @Qualifier("clientOutboundChannelExecutor")
+    private ObjectProvider<TaskExecutor> outboundExecutor;
+
+    @Autowired
+    private ObjectProvider<WebSocketMessageBrokerStats> brokerStats;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void registerMeters() {
+        Gauge.builder("chat.ws.sessions.open", openSessions, AtomicLong::get)
+                .description("Open WebSocket sessions")
+                .register(meterRegistry);
+        FunctionCounter.builder("chat.ws.sessions.slow-consumer", slowConsumerDisconnects, AtomicLong::get)
+                .description("Sessions closed because the client could not keep up")
+                .register(meterRegistry);
+        FunctionCounter.builder("chat.ws.transport.errors", transportErrors, AtomicLong::get)
+                .register(meterRegistry);
+        registerExecutorGauges("inbound", inboundExecutor::getObject);
+        registerExecutorGauges("outbound", outboundExecutor::getObject);
+    }
+
+    // Read at scrape time, so the executors are only resolved once the broker is up
+    private void registerExecutorGauges(String channel, Supplier<TaskExecutor> executor) {
+        Gauge.builder("chat.ws.executor.queued", () -> executorStats(executor.get()).getQueueSize())
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.executor.active", () -> executorStats(executor.get()).getActiveCount())
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+
+    // Counts STOMP frames on a client channel, tagged by direction and command
+    public ChannelInterceptor messageCounter(String direction) {
+        // Registered up front: a frame only reads its command header and increments
+        Map<StompCommand, Counter> byCommand = new EnumMap<>(StompCommand.class);
+        for (StompCommand command : StompCommand.values()) {
+            byCommand.put(command, frameCounter(direction, command.name()));
+        }
+        Counter other = frameCounter(direction, "OTHER");
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+                StompCommand command = StompHeaderAccessor.getCommand(message.getHeaders());
+                (command != null ? byCommand.get(command) : other).increment();
+                return message;
+            }
+        };
+    }
+
+    private Counter frameCounter(String direction, String command) {
+        return Counter.builder("chat.ws.messages")
+                .tag("direction", direction)
+                .tag("command", command)
+                .register(meterRegistry);
+    }
+
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+
+            @Override
+            public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) throws Exception {
+                transportErrors.incrementAndGet();
+                super.handleTransportError(session, exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                    slowConsumerDisconnects.incrementAndGet();
+                    log.warn("WebSocket session {} closed as a slow consumer: {}", session.getId(), closeStatus.getReason());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    public WebSocketStats snapshot() {
+        WebSocketStats stats = new WebSocketStats();
+        stats.setOpenSessions(openSessions.get());
+        stats.setSlowConsumerDisconnects(slowConsumerDisconnects.get());
+        stats.setTransportErrors(transportErrors.get());
+        stats.setInbound(executorStats(inboundExecutor.getObject()));
+        stats.setOutbound(executorStats(outboundExecutor.getObject()));
+        stats.setSpringStats(brokerStats.getObject().toString());
+        return stats;
+    }
+
+    private static WebSocketStats.ExecutorStats executorStats(TaskExecutor executor) {
+        WebSocketStats.ExecutorStats stats = new WebSocketStats.ExecutorStats();
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            ThreadPoolExecutor threadPool = pool.getThreadPoolExecutor();
+            stats.setType("pool");
+            stats.setPoolSize(threadPool.getPoolSize());
+            stats.setActiveCount(threadPool.getActiveCount());
+            stats.setQueueSize(threadPool.getQueue().size());
+            stats.setQueueRemaining(threadPool.getQueue().remainingCapacity());
+        } else {
+            stats.setType("virtual"); // one thread per task, nothing queues
+        }
+        return stats;
+    }
+}